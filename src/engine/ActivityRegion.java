@@ -0,0 +1,178 @@
+package engine;
+
+import engine.subsystems.PhysicsManager;
+
+import java.util.List;
+
+/**
+ * Decides which game objects are updated, so the time spent on updates depends on what is close to the screen
+ * instead of the size of the level. Objects inside the view plus a margin are active and updated every update.
+ * Objects further away are dormant. Dormant objects are updated every dormantInterval updates with the time that
+ * has passed since their last update, or not at all if dormantInterval is 0. An object that wakes up is first
+ * updated with the time it has been dormant, so it continues from about the same state as if it had been updated.
+ * Time that has passed while dormant is updated in steps of at most maxDormantStep, so dormant objects move in
+ * coarser steps than active ones but can't move through walls in one long step.
+ */
+public class ActivityRegion {
+    private static final double DEFAULT_MARGIN = 512;
+    private static final int DEFAULT_DORMANT_INTERVAL = 8;
+    private static final double DEFAULT_MAX_DORMANT_STEP = 4;
+
+    private double margin;          // Distance outside the view where objects are still active
+    private int dormantInterval;    // Updates between the updates of dormant objects, 0 if they aren't updated
+    private double maxDormantStep;  // Longest time step used for the time an object was dormant, compared to FPS
+    private double x, y, width, height;     // Active region
+    private long numUpdates;
+
+    // Statistics for the current update
+    private int numActive;
+    private int numDormant;
+
+    public ActivityRegion() {
+        margin = DEFAULT_MARGIN;
+        dormantInterval = DEFAULT_DORMANT_INTERVAL;
+        maxDormantStep = DEFAULT_MAX_DORMANT_STEP;
+    }
+
+    /**
+     * Set the part of the map that is on the screen. Should be called once before the objects are updated.
+     * Resets the number of active and dormant objects.
+     *
+     * @param x double, left edge of the view in map coordinates
+     * @param y double, top edge of the view in map coordinates
+     * @param width double
+     * @param height double
+     */
+    public void setView(double x, double y, double width, double height) {
+        this.x = x - margin;
+        this.y = y - margin;
+        this.width = width + 2 * margin;
+        this.height = height + 2 * margin;
+        numUpdates++;
+        numActive = 0;
+        numDormant = 0;
+    }
+
+    /**
+     * Checks if a game object is inside the active region.
+     *
+     * @param object GameObject
+     * @return true if the object is active
+     */
+    public boolean isActive(GameObject object) {
+        return PhysicsManager.rectangleRectangleCollision(x, y, width, height,
+                object.getX(), object.getY(), object.getWidth(), object.getHeight());
+    }
+
+    /**
+     * Update the objects in a list, using their index as key. Objects may remove themselves from the list while
+     * they are updated.
+     *
+     * @param objects List
+     * @param delta double
+     * @param <T> type of the game objects
+     */
+    public <T extends GameObject> void update(List<T> objects, double delta) {
+        for (int i = 0; i < objects.size(); i++) {
+            T object = objects.get(i);
+            update(object, i, delta);
+            if (i < objects.size() && objects.get(i) != object) {
+                i--;    // The object removed itself, the next object has moved to its place
+            }
+        }
+    }
+
+    /**
+     * Update an active object, or an object that should get its low frequency update while dormant.
+     * The key decides in which updates a dormant object is updated. It should be the same every time the game is
+     * run, like the index of the object in its list, so the game runs the same way every time.
+     *
+     * @param object GameObject
+     * @param key int
+     * @param delta double
+     */
+    public void update(GameObject object, int key, double delta) {
+        if (isActive(object)) {
+            numActive++;
+
+            // Catch up with the time the object was dormant, without drawing it between the two positions
+            if (object.getDormantDelta() > 0) {
+                updateDormant(object, object.getDormantDelta());
+                object.setDormantDelta(0);
+            }
+            object.storePosition();
+            object.update(delta);
+            return;
+        }
+
+        numDormant++;
+        if (dormantInterval <= 0) {
+            return;
+        }
+
+        // Dormant objects are spread over the updates so they aren't all updated at the same time
+        double dormantDelta = object.getDormantDelta() + delta;
+        if ((numUpdates + (key & Integer.MAX_VALUE)) % dormantInterval == 0) {
+            object.storePosition();
+            updateDormant(object, dormantDelta);
+            object.setDormantDelta(0);
+        } else {
+            object.setDormantDelta(dormantDelta);
+        }
+    }
+
+    /**
+     * Update an object with the time it has been dormant, in steps of at most maxDormantStep.
+     *
+     * @param object GameObject
+     * @param time double, the time compared to GameEngine.FPS
+     */
+    private void updateDormant(GameObject object, double time) {
+        while (time > maxDormantStep) {
+            object.update(maxDormantStep);
+            time -= maxDormantStep;
+        }
+        object.update(time);
+    }
+
+    // Getter methods
+
+    public double getMargin() {
+        return margin;
+    }
+
+    public int getDormantInterval() {
+        return dormantInterval;
+    }
+
+    public double getMaxDormantStep() {
+        return maxDormantStep;
+    }
+
+    public int getNumActive() {
+        return numActive;
+    }
+
+    public int getNumDormant() {
+        return numDormant;
+    }
+
+    // Setter methods
+
+    public void setMargin(double margin) {
+        this.margin = margin;
+    }
+
+    public void setDormantInterval(int dormantInterval) {
+        this.dormantInterval = dormantInterval;
+    }
+
+    /**
+     * Set the longest time step used to update the time an object was dormant.
+     *
+     * @param maxDormantStep double compared to GameEngine.FPS, 1 updates dormant objects like active ones
+     */
+    public void setMaxDormantStep(double maxDormantStep) {
+        this.maxDormantStep = Math.max(1, maxDormantStep);
+    }
+}
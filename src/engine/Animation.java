@@ -1,6 +1,7 @@
 package engine;
 
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 
 /**
  * This class handles a sequence of images representing the state of a game object (idle, run, jump etc).
@@ -8,8 +9,9 @@ import java.awt.image.BufferedImage;
  */
 public class Animation {
     private BufferedImage[] frames;
+    private final ArrayList<Variant> variants;  // Frames scaled and mirrored to the sizes they are drawn in
     private int currentFrame;
-    private long startTime;
+    private double frameTime;   // Milliseconds of simulated time since the frame changed
     private long delay;
     private boolean playedOnce;
 
@@ -17,17 +19,73 @@ public class Animation {
         this.frames = frames;
         this.delay = delay;
         playedOnce = false;
+        variants = new ArrayList<>();
     }
 
     /**
-     * Update the animation by changing frame after the selected delay.
+     * Frames of the animation scaled to a size and possibly mirrored.
      */
-    public void update() {
-        long elapsedTime = (System.nanoTime() - startTime) / 1000000;   // Milliseconds since last change of frame
+    private static class Variant {
+        private final int width, height;
+        private final boolean mirrored;
+        private final BufferedImage[] frames;
 
-        if (elapsedTime > delay) {
+        private Variant(int width, int height, boolean mirrored, BufferedImage[] frames) {
+            this.width = width;
+            this.height = height;
+            this.mirrored = mirrored;
+            this.frames = frames;
+        }
+    }
+
+    /**
+     * Scale and mirror all frames so they can be drawn without scaling. Should be called when the animation is
+     * created, otherwise it's done the first time the frames are drawn in this size.
+     *
+     * @param width int
+     * @param height int
+     * @param mirrored boolean, true if the frames should be mirrored horizontally
+     */
+    public void prepare(int width, int height, boolean mirrored) {
+        getVariant(width, height, mirrored);
+    }
+
+    /**
+     * Returns the frames scaled and mirrored, creating them if they don't exist.
+     *
+     * @param width int
+     * @param height int
+     * @param mirrored boolean
+     * @return BufferedImage[]
+     */
+    private BufferedImage[] getVariant(int width, int height, boolean mirrored) {
+        for (int i = 0; i < variants.size(); i++) {
+            Variant variant = variants.get(i);
+            if (variant.width == width && variant.height == height && variant.mirrored == mirrored) {
+                return variant.frames;
+            }
+        }
+
+        BufferedImage[] scaledFrames = new BufferedImage[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            scaledFrames[i] = GameEngine.loader.loadScaledImage(frames[i], width, height, mirrored);
+        }
+        variants.add(new Variant(width, height, mirrored, scaledFrames));
+        return scaledFrames;
+    }
+
+    /**
+     * Update the animation by changing frame after the selected delay. The time is counted in updates instead of
+     * real time, so the animation follows the game also when it runs faster or slower than real time.
+     *
+     * @param delta double, the time step compared to GameEngine.FPS
+     */
+    public void update(double delta) {
+        frameTime += delta * 1000 / GameEngine.FPS;
+
+        if (frameTime > delay) {
             currentFrame++;
-            startTime = System.nanoTime();
+            frameTime = 0;
         }
 
         if (currentFrame == frames.length) {
@@ -54,6 +112,40 @@ public class Animation {
         return frames[currentFrame];
     }
 
+    /**
+     * Get the image on the current frame scaled to width and height, so it can be drawn without scaling.
+     *
+     * @param width int
+     * @param height int
+     * @param mirrored boolean, true if the image should be mirrored horizontally
+     * @return BufferedImage
+     */
+    public BufferedImage getImage(int width, int height, boolean mirrored) {
+        return getVariant(width, height, mirrored)[currentFrame];
+    }
+
+    /**
+     * Get the image of any frame scaled to width and height. Used when several objects share the animation but
+     * are on different frames.
+     *
+     * @param frame int
+     * @param width int
+     * @param height int
+     * @param mirrored boolean, true if the image should be mirrored horizontally
+     * @return BufferedImage
+     */
+    public BufferedImage getImage(int frame, int width, int height, boolean mirrored) {
+        return getVariant(width, height, mirrored)[frame];
+    }
+
+    public int getNumFrames() {
+        return frames.length;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
     /**
      * Check if all of the animation has been played once.
      *
@@ -79,5 +171,6 @@ public class Animation {
      */
     public void setCurrentFrame(int currentFrame) {
         this.currentFrame = currentFrame;
+        frameTime = 0;
     }
 }
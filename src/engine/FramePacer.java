@@ -0,0 +1,118 @@
+package engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits out the time left of a frame in the game loop.
+ * SPIN busy-waits on System.nanoTime() which is exact but keeps a whole core busy.
+ * SLEEP parks the thread for all of the remaining time which saves cpu but the OS often oversleeps.
+ * HYBRID parks for most of the time and spins the last part. How much the OS oversleeps is measured every time the
+ * thread is parked, so the spin part is kept as short as possible.
+ */
+public class FramePacer {
+
+    public enum Mode {
+        SPIN,
+        SLEEP,
+        HYBRID
+    }
+
+    private static final long INITIAL_OVERSHOOT = 1000000; // Guess before anything is measured, 1 ms
+    private static final long MAX_OVERSHOOT = 4000000;     // Limit so one long hitch doesn't turn HYBRID into SPIN
+    private static final long SPIN_MARGIN = 100000;        // Extra time always spun in HYBRID mode, 0.1 ms
+
+    private final Mode mode;
+    private long overshoot;     // Estimated time in nanoseconds the OS oversleeps when the thread is parked
+    private long lastError;     // Time in nanoseconds the last frame ended after its target time
+
+    public FramePacer(Mode mode) {
+        this.mode = mode;
+        overshoot = INITIAL_OVERSHOOT;
+    }
+
+    /**
+     * Wait until System.nanoTime() has reached targetTime. Returns directly if targetTime has already passed.
+     *
+     * @param targetTime long with the time in nanoseconds the frame should end
+     */
+    public void waitUntil(long targetTime) {
+        switch (mode) {
+            case SPIN:
+                spin(targetTime);
+                break;
+            case SLEEP:
+                park(targetTime, 0);
+                break;
+            case HYBRID:
+                park(targetTime, overshoot + SPIN_MARGIN);
+                spin(targetTime);
+                break;
+        }
+        lastError = System.nanoTime() - targetTime;
+    }
+
+    /**
+     * Park the thread until the time left to targetTime is less than margin.
+     * Every park is measured and used to calibrate the overshoot.
+     *
+     * @param targetTime long
+     * @param margin long with the time in nanoseconds that should be left when parking stops
+     */
+    private void park(long targetTime, long margin) {
+        long remaining = targetTime - System.nanoTime();
+
+        while (remaining > margin) {
+            long sleepTime = remaining - margin;
+            long before = System.nanoTime();
+            LockSupport.parkNanos(sleepTime);
+            long after = System.nanoTime();
+            calibrate(after - before - sleepTime);
+            remaining = targetTime - after;
+        }
+    }
+
+    /**
+     * Busy-wait until targetTime is reached.
+     *
+     * @param targetTime long
+     */
+    private void spin(long targetTime) {
+        while (System.nanoTime() < targetTime) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Update the estimated overshoot. The estimate rises fast when the OS oversleeps more than expected and sinks
+     * slowly, so a single short sleep doesn't make the next frame late.
+     *
+     * @param measured long with the time in nanoseconds the last park took longer than asked for
+     */
+    private void calibrate(long measured) {
+        if (measured < 0) {     // Woken up early, for example by a spurious wakeup
+            return;
+        }
+        if (measured > overshoot) {
+            overshoot += (measured - overshoot) / 2;
+        } else {
+            overshoot -= (overshoot - measured) / 16;
+        }
+        if (overshoot > MAX_OVERSHOOT) {
+            overshoot = MAX_OVERSHOOT;
+        }
+    }
+
+    // Getter methods
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getOvershoot() {
+        return overshoot;
+    }
+
+    public long getLastError() {
+        return lastError;
+    }
+}
@@ -1,9 +1,6 @@
 package engine;
 
-import engine.subsystems.InputManager;
-import engine.subsystems.Loader;
-import engine.subsystems.PhysicsManager;
-import engine.subsystems.Renderer;
+import engine.subsystems.*;
 
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
@@ -16,9 +13,15 @@ import java.io.Serializable;
  * Key and mouse events are sent from this class to the InputManager.
  */
 public abstract class GameEngine implements Runnable, KeyListener, MouseListener, MouseMotionListener {
-    protected final int FPS = 60;
+    public static final int FPS = 60;   // Updates per second the game objects are tuned for
+    protected final int MAX_UPDATES_PER_FRAME = 5;  // Limit so a slow frame can't cause more and more updates
+    protected final int MAX_RENDER_ATTEMPTS = 3;    // Times a lost frame is drawn again, the window may be hidden
+    protected int updatesPerSecond = FPS;
+    protected int framesPerSecond = FPS;
     protected Thread thread;
     protected volatile boolean running;
+    protected boolean unthrottled;  // Run one update per loop as fast as possible instead of in real time
+    protected final FramePacer framePacer;
 
     // Subsystems
     public static Renderer renderer;
@@ -33,20 +36,50 @@ public abstract class GameEngine implements Runnable, KeyListener, MouseListener
      * @param screenHeight int
      */
     public GameEngine(int screenWidth, int screenHeight) {
-        renderer = new Renderer(screenWidth, screenHeight);
-        init();
+        this(screenWidth, screenHeight, FramePacer.Mode.HYBRID);
+    }
+
+    /**
+     * Create a game with fixed width and height of the window and a selected way of waiting between frames.
+     *
+     * @param screenWidth int
+     * @param screenHeight int
+     * @param pacingMode FramePacer.Mode
+     */
+    public GameEngine(int screenWidth, int screenHeight, FramePacer.Mode pacingMode) {
+        this(new WindowRenderer(screenWidth, screenHeight), pacingMode);
     }
 
     /**
      * Create a game in fullscreen window.
      */
     public GameEngine() {
-        renderer = new Renderer();
+        this(FramePacer.Mode.HYBRID);
+    }
+
+    /**
+     * Create a game in fullscreen window with a selected way of waiting between frames.
+     *
+     * @param pacingMode FramePacer.Mode
+     */
+    public GameEngine(FramePacer.Mode pacingMode) {
+        this(new WindowRenderer(), pacingMode);
+    }
+
+    /**
+     * Create a game with any renderer, for example a HeadlessRenderer to run the game without a window.
+     *
+     * @param renderer Renderer
+     * @param pacingMode FramePacer.Mode
+     */
+    public GameEngine(Renderer renderer, FramePacer.Mode pacingMode) {
+        GameEngine.renderer = renderer;
+        framePacer = new FramePacer(pacingMode);
         init();
     }
 
     /**
-     * Add listeners to renderer and initialize subsystems that are the same for fullscreen and windowed.
+     * Add listeners to renderer and initialize subsystems that are the same for all renderers.
      */
     private void init() {
         renderer.addKeyListener(this);
@@ -63,14 +96,18 @@ public abstract class GameEngine implements Runnable, KeyListener, MouseListener
     protected abstract void create();
 
     /**
-     * Update the game.
+     * Update the game. Called with a fixed time step, updatesPerSecond times per second.
+     *
+     * @param delta double, the time step compared to FPS. 1 if updatesPerSecond is FPS.
      */
     protected abstract void update(double delta);
 
     /**
      * Draw the game.
+     *
+     * @param alpha double between 0 and 1 with how far the time has come between the last update and the next
      */
-    protected abstract void draw();
+    protected abstract void draw(double alpha);
 
     /**
      * Start the game loop.
@@ -91,39 +128,85 @@ public abstract class GameEngine implements Runnable, KeyListener, MouseListener
     }
 
     /**
-     * Game loop.
+     * Game loop. The game is updated with a fixed time step and drawn at its own rate. Time left over between
+     * updates is passed to draw so moving objects can be drawn between their last two positions.
+     * If unthrottled, every loop runs one update and the loop never waits, so the game runs as fast as possible.
      */
     @Override
     public void run() {
-        long prevStartTime = System.nanoTime();
-        long targetTime = 1000000000 / FPS; // Target time in nanoseconds
+        long updateTime = 1000000000 / updatesPerSecond;    // Time step of one update in nanoseconds
+        long targetTime = 1000000000 / framesPerSecond;     // Target time of one frame in nanoseconds
+        double delta = FPS / (double) updatesPerSecond;     // Factor used for updating game objects
+        long accumulator = 0;   // Time that hasn't been simulated yet
 
         create();
 
+        long prevStartTime = System.nanoTime();
+
         while (running) {
             long startTime = System.nanoTime(); // Start time of frame
-            long deltaTime = startTime - prevStartTime;  // Time to run frame
+            if (unthrottled) {
+                accumulator += updateTime;  // Simulated time doesn't depend on real time
+            } else {
+                accumulator += startTime - prevStartTime;
+            }
             prevStartTime = startTime;  // Set new previous start time for next frame
-            double delta = deltaTime / (double) targetTime;    // Factor used for updating game objects
 
-            update(delta);
-            draw();
-            renderer.render();
+            int updates = 0;
+            while (accumulator >= updateTime && updates < MAX_UPDATES_PER_FRAME) {
+                inputManager.update();  // Handle the key events since the last update
+                SoundManager.getInstance().nextFrame();     // Sounds played twice in an update are played once
+                update(delta);
+                accumulator -= updateTime;
+                updates++;
+            }
 
-            long frameTime = System.nanoTime() - startTime; // Time that frame has taken so far
+            if (accumulator >= updateTime) {    // Too far behind, skip the time that couldn't be simulated
+                accumulator %= updateTime;
+            }
 
-            // TODO 3-4 ggr mindre cpu anv�ndning men mer lagg. Thread.sleep är inte tillräckligt exakt?
-            /*if (frameTime < targetTime) {
-                try{
-                    Thread.sleep((targetTime - frameTime) / 1000000);
-                } catch(InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }*/
+            // Draw the frame again if the renderer lost it, for example when a BufferStrategy lost its buffers
+            int attempts = 0;
+            do {
+                draw(accumulator / (double) updateTime);
+                attempts++;
+            } while (!renderer.render() && attempts < MAX_RENDER_ATTEMPTS);
 
-            while (frameTime < targetTime) {    // Loop until frame has reached targetTime.
-                frameTime = System.nanoTime() - startTime;  // Update the time frame has taken so far
+            if (!unthrottled) {
+                framePacer.waitUntil(startTime + targetTime);  // Wait until frame has reached targetTime
             }
         }
     }
+
+    // Getter methods
+
+    public FramePacer getFramePacer() {
+        return framePacer;
+    }
+
+    public int getUpdatesPerSecond() {
+        return updatesPerSecond;
+    }
+
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    public boolean isUnthrottled() {
+        return unthrottled;
+    }
+
+    // Setter methods, should be called before the game loop is started
+
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+    }
+
+    public void setFramesPerSecond(int framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    public void setUnthrottled(boolean unthrottled) {
+        this.unthrottled = unthrottled;
+    }
 }
@@ -1,8 +1,6 @@
 package engine;
 
-import game.Game;
 import game.map.TileMap;
-import javafx.scene.shape.Circle;
 
 import java.awt.*;
 
@@ -12,10 +10,13 @@ import java.awt.*;
 public abstract class GameObject {
     protected final Sprite sprite;
     protected Vector2 position;
+    protected final Vector2 previousPosition;  // Position before the last update, used when drawing
     protected Vector2 velocity;
     protected int width;
     protected int height;
     protected final TileMap tileMap;
+    protected final TileSweep tileSweep;    // Result of the last sweep()
+    private double dormantDelta;            // Time not yet updated while dormant, see ActivityRegion
 
     // Used for checking if tiles surrounding GameObject is blocked
     protected boolean topLeft, topRight, bottomLeft, bottomRight;
@@ -24,7 +25,9 @@ public abstract class GameObject {
         sprite = new Sprite();
         this.tileMap = tileMap;
         position = new Vector2(x, y);
+        previousPosition = new Vector2(x, y);
         velocity = new Vector2();
+        tileSweep = new TileSweep();
         create();
     }
 
@@ -42,11 +45,42 @@ public abstract class GameObject {
 
     /**
      * Draw the game object.
+     *
+     * @param alpha double between 0 and 1 used to draw the object between its last two positions.
+     */
+    public abstract void draw(double alpha);
+
+    /**
+     * Save the current position as the previous position. Should be called before the object is updated so it can
+     * be drawn between the position before and after the update.
+     */
+    public void storePosition() {
+        previousPosition.set(position);
+    }
+
+    /**
+     * Returns the horizontal position to draw the object at, between the previous and current position.
+     *
+     * @param alpha double between 0 and 1
+     * @return double
      */
-    public abstract void draw();
+    public double getDrawX(double alpha) {
+        return previousPosition.x + (position.x - previousPosition.x) * alpha;
+    }
 
     /**
-     * Returns a Rectangle representing the bounds of the game object. Used for handling collisions.
+     * Returns the vertical position to draw the object at, between the previous and current position.
+     *
+     * @param alpha double between 0 and 1
+     * @return double
+     */
+    public double getDrawY(double alpha) {
+        return previousPosition.y + (position.y - previousPosition.y) * alpha;
+    }
+
+    /**
+     * Returns a new Rectangle representing the bounds of the game object.
+     * Collision checks in PhysicsManager use getX(), getY(), getWidth() and getHeight() instead to avoid allocating.
      *
      * @return Rectangle representing the game object
      */
@@ -55,27 +89,59 @@ public abstract class GameObject {
     }
 
     /**
-     * Returns a Circle representing the bounds of the game object. Used for handling collisions.
+     * Returns the a new Vector2 with the x- and y-position of the GameObjects center.
+     * Use getCenterX() and getCenterY() to avoid allocating.
+     *
+     * @return Vector2 with center point of GameObject
+     */
+    public Vector2 getCenter() {
+        return new Vector2(getCenterX(), getCenterY());
+    }
+
+    /**
+     * Returns the horizontal position of the GameObjects center.
+     *
+     * @return double
+     */
+    public double getCenterX() {
+        return position.x + width / 2.0;
+    }
+
+    /**
+     * Returns the vertical position of the GameObjects center.
+     *
+     * @return double
+     */
+    public double getCenterY() {
+        return position.y + height / 2.0;
+    }
+
+    /**
+     * Returns the radius of the circle representing the game object in collisions.
      * Circle radius is the game objects width divided by two.
      *
-     * @return Circle representing the game object
+     * @return double
      */
-    public Circle getCircle() {
-        return new Circle(position.x + width / 2, position.y + height / 2, width / 2);
+    public double getRadius() {
+        return width / 2.0;
     }
 
     /**
-     * Returns the a Vector2 with the x- and y-position of the GameObjects center
+     * Move the bounds of the GameObject by dx, dy and find the first blocked tile they hit on the way.
+     * Works for any speed and size. The result is stored in tileSweep, the position isn't changed.
      *
-     * @return Vector2 with center point of GameObject
+     * @param dx double, horizontal movement
+     * @param dy double, vertical movement
+     * @return true if a blocked tile is hit
      */
-    public Vector2 getCenter() {
-        return new Vector2(position.x + width / 2, position.y + height / 2);
+    protected boolean sweep(double dx, double dy) {
+        return tileSweep.sweep(tileMap, position.x, position.y, width, height, dx, dy);
     }
 
     /**
      * Checks which four (or less) tiles the GameObject is on.
-     * Only works if game object is small enough to fit on four tiles.
+     * Only works if game object is small enough to fit on four tiles and doesn't move more than a tile per update,
+     * use sweep() otherwise.
      * Also checks if the tiles are blocked or free to move through.
      *
      * @param x double, horizontal position
@@ -104,9 +170,9 @@ public abstract class GameObject {
      */
     public boolean isOnScreen() {
         return position.x + tileMap.getX() + width > 0 ||                                   // Left limit of screen
-                position.x + tileMap.getX() - width < Game.renderer.getScreenWidth() ||     // Right limit of screen
+                position.x + tileMap.getX() - width < GameEngine.renderer.getScreenWidth() ||     // Right limit of screen
                 position.y + tileMap.getY() + height > 0 ||                                 // Upper limit of screen
-                position.y + tileMap.getY() - height < Game.renderer.getScreenHeight();     // Lower limit of screen
+                position.y + tileMap.getY() - height < GameEngine.renderer.getScreenHeight();     // Lower limit of screen
     }
 
     // Getter methods
@@ -135,6 +201,10 @@ public abstract class GameObject {
         return height;
     }
 
+    public double getDormantDelta() {
+        return dormantDelta;
+    }
+
     // Setter methods
 
     public void setPosition(double x, double y) {
@@ -154,4 +224,8 @@ public abstract class GameObject {
     public void setVelocity(Vector2 other) {
         velocity = other;
     }
+
+    public void setDormantDelta(double dormantDelta) {
+        this.dormantDelta = dormantDelta;
+    }
 }
@@ -4,6 +4,7 @@ package engine;
  * Abstract class that represents a state of the game for example a menu or a level.
  */
 public abstract class GameState {
+    protected String music;     // Path of the music played in this state, null to keep the music that is playing
 
     public GameState() {}
 
@@ -21,6 +22,12 @@ public abstract class GameState {
 
     /**
      * Draw the content of the game state.
+     *
+     * @param alpha double between 0 and 1 used to draw moving objects between their last two positions.
      */
-    public abstract void draw();
+    public abstract void draw(double alpha);
+
+    public String getMusic() {
+        return music;
+    }
 }
@@ -74,7 +74,7 @@ public class PlatformerMovement {
      */
     private void updateJumping(double delta, Vector2 velocity) {
         if (jumping && !falling) {
-            velocity.y = jumpStart * delta;
+            velocity.y = jumpStart;    // Start speed of a jump doesn't depend on the time step
             falling = true;
         }
     }
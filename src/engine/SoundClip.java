@@ -1,61 +1,49 @@
 package engine;
 
-import javax.sound.sampled.*;
-import java.io.BufferedInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Serializable;
+import engine.subsystems.SoundManager;
 
 /**
- * Class representing a single sound like a sound effect or music sequence.
+ * Class representing a single sound like a sound effect or music sequence. The sound is played by the AudioMixer
+ * from SoundData decoded by the SoundBank, so the same sound can be played several times at once without copying it.
+ * Playing and stopping only sends a command through the SoundManager and never waits for the sound device.
  */
 public class SoundClip {
-    private Clip clip;
+    private final SoundManager soundManager;
+    private SoundData data;     // null if the sound couldn't be read
+    private float volume;
 
-    public SoundClip(String path) {
-        try {
-            InputStream audioSource = getClass().getResourceAsStream(path);
-            InputStream bufferedIn = new BufferedInputStream(audioSource);
-            AudioInputStream ais = AudioSystem.getAudioInputStream(bufferedIn);
-            clip = AudioSystem.getClip();
-            clip.open(ais);
-        } catch (IOException e) {
-            e.printStackTrace();
-        } catch (UnsupportedAudioFileException e) {
-            e.printStackTrace();
-        } catch (LineUnavailableException e) {
-            e.printStackTrace();
-        }
+    public SoundClip(SoundData data, SoundManager soundManager) {
+        this.data = data;
+        this.soundManager = soundManager;
+        volume = 1;
     }
 
     /**
-     * Play the sound once.
+     * Play the sound once. Plays on top of the sound if it's already playing.
      */
     public void play() {
-        if (clip == null) {
+        if (data == null) {
             return;
         }
-        stop();
-        clip.setFramePosition(0);
-        clip.start();
+        soundManager.play(this, volume);
     }
 
     /**
      * Loop the sound repeatedly.
      */
     public void loop() {
-        if (clip == null) {
+        if (data == null) {
             return;
         }
-        clip.loop(Clip.LOOP_CONTINUOUSLY);
+        soundManager.loop(this, volume);
     }
 
     /**
      * Stop the sound stream. Sound can be played again later in the game.
      */
     public void stop() {
-        if (clip.isRunning()) {
-            clip.stop();
+        if (data != null) {
+            soundManager.stop(this);
         }
     }
 
@@ -64,6 +52,35 @@ public class SoundClip {
      */
     public void close() {
         stop();
-        clip.close();
+        data = null;
+    }
+
+    // Getter methods
+
+    /**
+     * Returns the decoded sound, used by the AudioMixer.
+     *
+     * @return SoundData, or null if the sound couldn't be read
+     */
+    public SoundData getData() {
+        return data;
+    }
+
+    public float getVolume() {
+        return volume;
+    }
+
+    // Setter methods
+
+    /**
+     * Set the volume of the sound, also for voices that are already playing it.
+     *
+     * @param volume float, 1 for the volume of the sound file
+     */
+    public void setVolume(float volume) {
+        this.volume = volume;
+        if (data != null) {
+            soundManager.setGain(this, volume);
+        }
     }
 }
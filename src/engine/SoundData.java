@@ -0,0 +1,51 @@
+package engine;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Decoded samples of a sound in the format of the AudioMixer, interleaved stereo 16 bit samples at 44100 Hz.
+ * Immutable, so the same SoundData can be played by any number of voices at once without copying it.
+ * The samples are either in a heap array or off-heap in a direct buffer, see SoundBank.
+ */
+public final class SoundData {
+    private final String path;
+    private final ShortBuffer samples;  // Read-only, only absolute reads are used so it can be shared by threads
+
+    public SoundData(String path, ShortBuffer samples) {
+        this.path = path;
+        this.samples = samples.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a sample.
+     *
+     * @param i int, index of the sample, two samples per frame
+     * @return short
+     */
+    public short getSample(int i) {
+        return samples.get(i);
+    }
+
+    /**
+     * Returns the memory used by the samples.
+     *
+     * @return int, bytes
+     */
+    public int getNumBytes() {
+        return samples.capacity() * 2;
+    }
+
+    // Getter methods
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getNumSamples() {
+        return samples.capacity();
+    }
+
+    public boolean isDirect() {
+        return samples.isDirect();
+    }
+}
@@ -18,9 +18,11 @@ public class Sprite {
 
     /**
      * Update the animation current animation.
+     *
+     * @param delta double, the time step compared to GameEngine.FPS
      */
-    public void update() {
-        animations.get(currentAnimation).update();
+    public void update(double delta) {
+        animations.get(currentAnimation).update(delta);
     }
 
     /**
@@ -0,0 +1,150 @@
+package engine;
+
+import game.map.TileMap;
+
+/**
+ * Continuous collision detection between a moving rectangle and the blocked tiles of a TileMap (swept AABB).
+ * The tiles are visited in the order the edges of the rectangle reach them, like a DDA line traversal, so an object
+ * can't move through a wall no matter how far it moves in one update. The rectangle can be larger than a tile.
+ * Tiles outside the map count as blocked. The result of the last sweep is stored in the object so sweeping
+ * doesn't allocate.
+ */
+public class TileSweep {
+    private static final double EPSILON = 1e-9;   // Edges closer than this to a tile border count as on the border
+
+    private boolean hit;
+    private double time;            // Fraction of the movement done before the hit, between 0 and 1
+    private int normalX, normalY;   // Contact normal pointing out of the hit tiles, -1, 0 or 1 on each axis
+    private double x, y;            // Position of the rectangle at the hit or after the full movement
+
+    /**
+     * Move a rectangle from x, y by dx, dy and find the first blocked tile it hits. If a tile is hit the position
+     * is placed exactly against the tile. A rectangle that already overlaps blocked tiles is only stopped by the
+     * tiles it moves into.
+     *
+     * @param tileMap TileMap
+     * @param x double, left edge of the rectangle
+     * @param y double, top edge of the rectangle
+     * @param width double
+     * @param height double
+     * @param dx double, horizontal movement
+     * @param dy double, vertical movement
+     * @return true if a blocked tile is hit
+     */
+    public boolean sweep(TileMap tileMap, double x, double y, double width, double height, double dx, double dy) {
+        int tileSize = tileMap.getTileSize();
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+
+        // The edges leading the movement and the next column and row they move into
+        double leadX = stepX > 0 ? x + width : x;
+        double leadY = stepY > 0 ? y + height : y;
+        int nextCol = stepX > 0 ? (int) Math.ceil((leadX - EPSILON) / tileSize)
+                : (int) Math.floor((leadX + EPSILON) / tileSize) - 1;
+        int nextRow = stepY > 0 ? (int) Math.ceil((leadY - EPSILON) / tileSize)
+                : (int) Math.floor((leadY + EPSILON) / tileSize) - 1;
+        double timeX = stepX == 0 ? Double.POSITIVE_INFINITY : timeToBorder(nextCol, stepX, leadX, dx, tileSize);
+        double timeY = stepY == 0 ? Double.POSITIVE_INFINITY : timeToBorder(nextRow, stepY, leadY, dy, tileSize);
+
+        while (timeX <= 1 || timeY <= 1) {
+            double t = Math.min(timeX, timeY);
+            double left = x + dx * t;
+            double top = y + dy * t;
+            boolean enteringCol = timeX == t;
+            boolean enteringRow = timeY == t;
+            boolean blockedX = false;
+            boolean blockedY = false;
+
+            // Tiles along the edge that reaches a new column or row
+            if (enteringCol) {
+                blockedX = tileMap.isColumnSpanBlocked(nextCol,
+                        firstTile(top, tileSize), lastTile(top + height, tileSize));
+            }
+            if (enteringRow) {
+                blockedY = tileMap.isRowSpanBlocked(nextRow,
+                        firstTile(left, tileSize), lastTile(left + width, tileSize));
+            }
+
+            // Moving exactly into a corner, only the diagonal tile can be hit
+            if (enteringCol && enteringRow && !blockedX && !blockedY) {
+                blockedX = blockedY = tileMap.isBlocked(nextRow, nextCol);
+            }
+
+            if (blockedX || blockedY) {
+                hit = true;
+                time = t;
+                normalX = blockedX ? -stepX : 0;
+                normalY = blockedY ? -stepY : 0;
+                this.x = blockedX ? (stepX > 0 ? nextCol * tileSize - width : (nextCol + 1) * tileSize) : left;
+                this.y = blockedY ? (stepY > 0 ? nextRow * tileSize - height : (nextRow + 1) * tileSize) : top;
+                return true;
+            }
+
+            if (enteringCol) {
+                nextCol += stepX;
+                timeX = timeToBorder(nextCol, stepX, leadX, dx, tileSize);
+            }
+            if (enteringRow) {
+                nextRow += stepY;
+                timeY = timeToBorder(nextRow, stepY, leadY, dy, tileSize);
+            }
+        }
+
+        hit = false;
+        time = 1;
+        normalX = 0;
+        normalY = 0;
+        this.x = x + dx;
+        this.y = y + dy;
+        return false;
+    }
+
+    /**
+     * Returns the fraction of the movement before a leading edge reaches the border of the next column or row.
+     *
+     * @param next int, next column or row
+     * @param step int, 1 or -1
+     * @param lead double, position of the leading edge
+     * @param distance double, movement along the axis
+     * @param tileSize int
+     * @return double
+     */
+    private static double timeToBorder(int next, int step, double lead, double distance, int tileSize) {
+        double border = step > 0 ? next * tileSize : (next + 1) * tileSize;
+        return Math.max(0, (border - lead) / distance);
+    }
+
+    private static int firstTile(double min, int tileSize) {
+        return (int) Math.floor((min + EPSILON) / tileSize);
+    }
+
+    private static int lastTile(double max, int tileSize) {
+        return (int) Math.floor((max - EPSILON) / tileSize);
+    }
+
+    // Getter methods
+
+    public boolean isHit() {
+        return hit;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public int getNormalX() {
+        return normalX;
+    }
+
+    public int getNormalY() {
+        return normalY;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+}
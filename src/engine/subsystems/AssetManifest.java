@@ -0,0 +1,66 @@
+package engine.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List of images, atlases and sounds that should be loaded before they are used. Given to Loader.preload().
+ */
+public class AssetManifest {
+    private final ArrayList<String> atlases;
+    private final ArrayList<String> images;
+    private final ArrayList<String> sounds;
+
+    public AssetManifest() {
+        atlases = new ArrayList<>();
+        images = new ArrayList<>();
+        sounds = new ArrayList<>();
+    }
+
+    /**
+     * Add a directory of images that should be packed into an atlas. See Loader.loadAtlas().
+     *
+     * @param directory String
+     * @return this AssetManifest so calls can be chained
+     */
+    public AssetManifest addAtlas(String directory) {
+        atlases.add(directory);
+        return this;
+    }
+
+    /**
+     * Add an image.
+     *
+     * @param path String
+     * @return this AssetManifest so calls can be chained
+     */
+    public AssetManifest addImage(String path) {
+        images.add(path);
+        return this;
+    }
+
+    /**
+     * Add a sound.
+     *
+     * @param path String
+     * @return this AssetManifest so calls can be chained
+     */
+    public AssetManifest addSound(String path) {
+        sounds.add(path);
+        return this;
+    }
+
+    // Getter methods
+
+    public List<String> getAtlases() {
+        return atlases;
+    }
+
+    public List<String> getImages() {
+        return images;
+    }
+
+    public List<String> getSounds() {
+        return sounds;
+    }
+}
@@ -0,0 +1,268 @@
+package engine.subsystems;
+
+import engine.SoundClip;
+import engine.SoundData;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+
+/**
+ * Software mixer that plays all sounds through one SourceDataLine. A daemon audio thread mixes the playing voices
+ * into small buffers and writes them to the line, which blocks until the line has room, so the line sets the pace.
+ *
+ * Sounds are started and stopped by commands in a SoundCommandQueue, which the audio thread drains before mixing,
+ * so the game thread never waits for the audio thread or the sound device. Only the audio thread touches the
+ * voices. When all voices are playing, a new sound steals the voice that has played the longest, preferring voices
+ * that aren't looping.
+ */
+public class AudioMixer implements Runnable {
+    public static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2, true, false);   // Format of all sounds
+    public static final int CHANNELS = 2;
+    private static final int BUFFER_FRAMES = 512;   // Frames mixed at a time, about 12 ms
+    private static final int LINE_BUFFERS = 4;      // Size of the line buffer in mixed buffers
+    private static final int MAX_VOICES = 32;
+
+    private final Voice[] voices;
+    private final SoundCommandQueue commands;
+    private final SoundCommandQueue.Handler handler;
+    private final MusicPlayer music;
+    private final int[] mix;            // Sum of the voices before it's clipped to 16 bits
+    private final byte[] output;
+    private SourceDataLine line;
+    private Thread thread;
+    private volatile boolean running;
+    private boolean unavailable;        // No line could be opened, start() doesn't try again
+    private volatile int maxVoices;     // Voices that can play at the same time, at most MAX_VOICES
+    private volatile float masterGain;
+    private long numStarted;            // Voices started, used to find the oldest voice
+
+    // Statistics, written by the audio thread
+    private volatile int numPlaying;
+    private volatile int numStolen;
+
+    public AudioMixer(SoundCommandQueue commands, MusicPlayer music) {
+        voices = new Voice[MAX_VOICES];
+        for (int i = 0; i < voices.length; i++) {
+            voices[i] = new Voice();
+        }
+        this.commands = commands;
+        handler = this::handle;
+        this.music = music;
+        mix = new int[BUFFER_FRAMES * CHANNELS];
+        output = new byte[BUFFER_FRAMES * CHANNELS * 2];
+        maxVoices = 16;
+        masterGain = 1;
+    }
+
+    /**
+     * A sound being played. Only used by the audio thread.
+     */
+    private static class Voice {
+        private SoundClip clip;     // null if the voice is free
+        private SoundData data;
+        private int position;       // Next sample to mix
+        private float gain;
+        private boolean looping;
+        private long started;
+    }
+
+    /**
+     * Open the line and start the audio thread. Does nothing if it's already started. If there is no sound device,
+     * for example when running headless, the mixer stays stopped and sounds are ignored.
+     *
+     * @return true if the mixer is running
+     */
+    public synchronized boolean start() {
+        if (running || unavailable) {
+            return running;
+        }
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, output.length * LINE_BUFFERS);
+            line.start();
+        } catch (LineUnavailableException e) {     // Line is used by another program, only reported once
+            System.err.println("Sound is off, the audio line can't be opened: " + e.getMessage());
+            unavailable = true;
+            return false;
+        } catch (IllegalArgumentException e) {  // No sound device, normal when running headless
+            unavailable = true;
+            return false;
+        }
+        running = true;
+        thread = new Thread(this, "Audio");
+        thread.setDaemon(true);     // Don't keep the game running when the window is closed
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stop the audio thread and close the line.
+     */
+    public synchronized void stop() {
+        running = false;
+    }
+
+    /**
+     * Audio thread. Handles the commands, mixes the voices and writes them to the line.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            commands.drain(handler);
+            mixVoices();
+            line.write(output, 0, output.length);
+        }
+        line.drain();
+        line.close();
+    }
+
+    /**
+     * Handle a command from the queue.
+     *
+     * @param command byte
+     * @param clip SoundClip
+     * @param gain float
+     */
+    private void handle(byte command, SoundClip clip, float gain) {
+        switch (command) {
+            case SoundCommandQueue.PLAY:
+            case SoundCommandQueue.LOOP:
+                SoundData data = clip.getData();    // Read once, the clip can be closed at any time
+                if (data != null && data.getNumSamples() > 0) {
+                    startVoice(clip, data, gain, command == SoundCommandQueue.LOOP);
+                }
+                break;
+            case SoundCommandQueue.STOP:
+                for (Voice voice : voices) {
+                    if (voice.clip == clip) {
+                        voice.clip = null;
+                    }
+                }
+                break;
+            case SoundCommandQueue.GAIN:
+                for (Voice voice : voices) {
+                    if (voice.clip == clip) {
+                        voice.gain = gain;
+                    }
+                }
+                break;
+            case SoundCommandQueue.STOP_ALL:
+                for (Voice voice : voices) {
+                    voice.clip = null;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Start a voice, stealing the oldest voice if the polyphony limit is reached.
+     *
+     * @param clip SoundClip
+     * @param data SoundData of the clip
+     * @param gain float
+     * @param looping boolean
+     */
+    private void startVoice(SoundClip clip, SoundData data, float gain, boolean looping) {
+        int limit = Math.min(maxVoices, voices.length);
+        Voice chosen = null;
+        Voice oldest = null;
+        Voice oldestLooping = null;
+        for (int i = 0; i < limit && chosen == null; i++) {
+            Voice voice = voices[i];
+            if (voice.clip == null) {
+                chosen = voice;
+            } else if (!voice.looping && (oldest == null || voice.started < oldest.started)) {
+                oldest = voice;
+            } else if (voice.looping && (oldestLooping == null || voice.started < oldestLooping.started)) {
+                oldestLooping = voice;
+            }
+        }
+        if (chosen == null) {
+            chosen = oldest != null ? oldest : oldestLooping;
+            if (chosen == null) {   // maxVoices is 0
+                return;
+            }
+            numStolen++;
+        }
+        chosen.clip = clip;
+        chosen.data = data;
+        chosen.position = 0;
+        chosen.gain = gain;
+        chosen.looping = looping;
+        chosen.started = numStarted++;
+    }
+
+    /**
+     * Mix BUFFER_FRAMES frames of all playing voices into output.
+     */
+    private void mixVoices() {
+        Arrays.fill(mix, 0);
+        int playing = 0;
+        for (Voice voice : voices) {
+            if (voice.clip == null) {
+                continue;
+            }
+            playing++;
+            int gain = (int) (voice.gain * masterGain * 256);   // 8 bits fixed point
+            SoundData data = voice.data;
+            int numSamples = data.getNumSamples();
+            int position = voice.position;
+            for (int i = 0; i < mix.length; i++) {
+                if (position == numSamples) {
+                    if (!voice.looping) {
+                        voice.clip = null;
+                        break;
+                    }
+                    position = 0;
+                }
+                mix[i] += (data.getSample(position++) * gain) >> 8;
+            }
+            voice.position = position;
+        }
+        numPlaying = playing;
+        music.mix(mix);
+
+        // Clip to 16 bits, little endian
+        for (int i = 0; i < mix.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            output[2 * i] = (byte) sample;
+            output[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    // Getter methods
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getMaxVoices() {
+        return maxVoices;
+    }
+
+    public float getMasterGain() {
+        return masterGain;
+    }
+
+    public int getNumPlaying() {
+        return numPlaying;
+    }
+
+    public int getNumStolen() {
+        return numStolen;
+    }
+
+    // Setter methods
+
+    public void setMaxVoices(int maxVoices) {
+        this.maxVoices = Math.max(0, Math.min(MAX_VOICES, maxVoices));
+    }
+
+    public void setMasterGain(float masterGain) {
+        this.masterGain = masterGain;
+    }
+}
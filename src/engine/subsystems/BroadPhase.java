@@ -0,0 +1,39 @@
+package engine.subsystems;
+
+import engine.GameObject;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Broad phase of collision detection. Finds the objects whose bounding rectangles overlap, so the exact collision
+ * checks in PhysicsManager only have to be done for those. Created with PhysicsManager.createBroadPhase().
+ *
+ * @param <T> type of the game objects
+ */
+public interface BroadPhase<T extends GameObject> {
+
+    /**
+     * Update the broad phase with the current positions of the objects. Must be called after the objects have moved
+     * and before the other methods, and again if objects are added or removed.
+     *
+     * @param objects List of game objects
+     */
+    void update(List<T> objects);
+
+    /**
+     * Call handler once for every pair of objects whose bounding rectangles overlap.
+     *
+     * @param handler BiConsumer called with the two objects
+     */
+    void forEachPair(BiConsumer<T, T> handler);
+
+    /**
+     * Call handler once for every object whose bounding rectangle overlaps the bounding rectangle of object.
+     *
+     * @param object GameObject that doesn't have to be one of the objects in the broad phase
+     * @param handler Consumer called with the overlapping object
+     */
+    void forEachNear(GameObject object, Consumer<T> handler);
+}
@@ -0,0 +1,200 @@
+package engine.subsystems;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Renderer that draws directly on the back buffer of a Canvas with a BufferStrategy and shows it by page flipping
+ * or a single blit, instead of drawing to an image that is then copied through the Swing paint path.
+ * The Graphics2D object in this class changes every frame, so it should be fetched with getGraphics2D() every time
+ * it's used. Dialogs shown in the content pane end up behind the Canvas.
+ */
+public class CanvasRenderer implements Renderer {
+    private final JFrame frame;
+    private final Canvas canvas;
+    private BufferStrategy bufferStrategy;
+    private Graphics2D graphics2D;
+    private int width, height;
+    private final boolean fullscreen;
+    private final boolean vsync;
+
+    // Measured times in nanoseconds
+    private long lastRenderTime;
+    private long frameTime;     // Time between the two last frames
+    private long presentTime;   // Time it took to show the last frame
+
+    /**
+     * Constructor initializing a window with a fixed width and height.
+     *
+     * @param width int
+     * @param height int
+     * @param numBuffers int, 2 for double buffering or 3 for triple buffering
+     * @param vsync boolean, true if the buffers should be flipped and synced with the screen when possible
+     */
+    public CanvasRenderer(int width, int height, int numBuffers, boolean vsync) {
+        this.width = width;
+        this.height = height;
+        this.vsync = vsync;
+        fullscreen = false;
+        frame = new JFrame();
+        canvas = new Canvas();
+        canvas.setPreferredSize(new Dimension(width, height));
+        frame.add(canvas);
+        frame.setResizable(false);
+        frame.pack();
+        frame.setVisible(true);
+        init(numBuffers);
+    }
+
+    /**
+     * Constructor initializing a window in fullscreen.
+     *
+     * @param numBuffers int, 2 for double buffering or 3 for triple buffering
+     * @param vsync boolean, true if the buffers should be flipped and synced with the screen when possible
+     */
+    public CanvasRenderer(int numBuffers, boolean vsync) {
+        this.vsync = vsync;
+        fullscreen = true;
+        frame = new JFrame();
+        canvas = new Canvas();
+        frame.add(canvas);
+        frame.setUndecorated(true);
+        frame.setResizable(false);
+        GraphicsEnvironment environment = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        GraphicsDevice device = environment.getDefaultScreenDevice();
+        device.setFullScreenWindow(frame);
+        frame.validate();
+        this.width = canvas.getWidth();
+        this.height = canvas.getHeight();
+        init(numBuffers);
+    }
+
+    /**
+     * Create the BufferStrategy and variables used by both fullscreen and windowed constructors.
+     *
+     * @param numBuffers int
+     */
+    private void init(int numBuffers) {
+        frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        canvas.setIgnoreRepaint(true);  // Everything is drawn by the game loop
+        frame.setIgnoreRepaint(true);
+        createBufferStrategy(numBuffers);
+        graphics2D = (Graphics2D) bufferStrategy.getDrawGraphics();
+        canvas.requestFocus();
+        lastRenderTime = System.nanoTime();
+    }
+
+    /**
+     * Create the BufferStrategy. With vsync page flipping is asked for, which is synced with the screen by most
+     * drivers. If flipping isn't supported the default BufferStrategy is used.
+     *
+     * @param numBuffers int
+     */
+    private void createBufferStrategy(int numBuffers) {
+        if (vsync) {
+            try {
+                canvas.createBufferStrategy(numBuffers, new BufferCapabilities(
+                        new ImageCapabilities(true),
+                        new ImageCapabilities(true),
+                        BufferCapabilities.FlipContents.UNDEFINED
+                ));
+            } catch (AWTException e) {
+                canvas.createBufferStrategy(numBuffers);
+            }
+        } else {
+            canvas.createBufferStrategy(numBuffers);
+        }
+        bufferStrategy = canvas.getBufferStrategy();
+    }
+
+    /**
+     * Show the back buffer and get a new Graphics2D object for the next frame.
+     * If the buffer was restored while it was drawn, or lost when it was shown, the frame has to be drawn again.
+     * This is the usual BufferStrategy loop, with the drawing done by the game loop between the calls.
+     */
+    @Override
+    public boolean render() {
+        long startTime = System.nanoTime();
+
+        graphics2D.dispose();
+        boolean shown = false;
+        if (!bufferStrategy.contentsRestored()) {   // A restored buffer doesn't contain the frame
+            bufferStrategy.show();
+            shown = !bufferStrategy.contentsLost();
+        }
+        if (vsync) {
+            Toolkit.getDefaultToolkit().sync();
+        }
+        graphics2D = (Graphics2D) bufferStrategy.getDrawGraphics();
+
+        long endTime = System.nanoTime();
+        presentTime = endTime - startTime;
+        frameTime = startTime - lastRenderTime;
+        lastRenderTime = startTime;
+        return shown;
+    }
+
+    @Override
+    public void addKeyListener(KeyListener listener) {
+        canvas.addKeyListener(listener);
+    }
+
+    @Override
+    public void addMouseListener(MouseListener listener) {
+        canvas.addMouseListener(listener);
+    }
+
+    @Override
+    public void addMouseMotionListener(MouseMotionListener listener) {
+        canvas.addMouseMotionListener(listener);
+    }
+
+    @Override
+    public Container getContentPane() {
+        return frame.getContentPane();
+    }
+
+    // Getter methods
+
+    @Override
+    public Graphics2D getGraphics2D() {
+        return graphics2D;
+    }
+
+    @Override
+    public boolean isFullscreen() {
+        return fullscreen;
+    }
+
+    @Override
+    public int getScreenWidth() {
+        return width;
+    }
+
+    @Override
+    public int getScreenHeight() {
+        return height;
+    }
+
+    @Override
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    @Override
+    public long getPresentTime() {
+        return presentTime;
+    }
+
+    public boolean isVsync() {
+        return vsync;
+    }
+
+    public boolean isPageFlipping() {
+        return bufferStrategy.getCapabilities().isPageFlipping();
+    }
+}
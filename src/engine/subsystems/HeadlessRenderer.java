@@ -0,0 +1,99 @@
+package engine.subsystems;
+
+import java.awt.*;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+
+/**
+ * Renderer without a window. Everything is drawn on an offscreen image that is never shown, so the game can run
+ * without a screen, for example on a server or with java.awt.headless=true.
+ */
+public class HeadlessRenderer implements Renderer {
+    private final BufferedImage image;
+    private final Graphics2D graphics2D;
+    private final int width, height;
+    private long lastRenderTime;
+    private long frameTime;     // Time in nanoseconds between the two last frames
+
+    public HeadlessRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics2D = image.createGraphics();
+        lastRenderTime = System.nanoTime();
+    }
+
+    /**
+     * Nothing is shown, only the frame time is measured.
+     */
+    @Override
+    public boolean render() {
+        long startTime = System.nanoTime();
+        frameTime = startTime - lastRenderTime;
+        lastRenderTime = startTime;
+        return true;
+    }
+
+    @Override
+    public void addKeyListener(KeyListener listener) {
+        // No keyboard input without a window
+    }
+
+    @Override
+    public void addMouseListener(MouseListener listener) {
+        // No mouse input without a window
+    }
+
+    @Override
+    public void addMouseMotionListener(MouseMotionListener listener) {
+        // No mouse input without a window
+    }
+
+    @Override
+    public Container getContentPane() {
+        return null;
+    }
+
+    // Getter methods
+
+    /**
+     * Returns the image everything is drawn on. Can be used to check what would have been shown on the screen.
+     *
+     * @return BufferedImage
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public Graphics2D getGraphics2D() {
+        return graphics2D;
+    }
+
+    @Override
+    public boolean isFullscreen() {
+        return false;
+    }
+
+    @Override
+    public int getScreenWidth() {
+        return width;
+    }
+
+    @Override
+    public int getScreenHeight() {
+        return height;
+    }
+
+    @Override
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    @Override
+    public long getPresentTime() {
+        return 0;   // Nothing is shown
+    }
+}
@@ -0,0 +1,187 @@
+package engine.subsystems;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Thread safe cache of loaded images with a limit on the memory used by their pixels. When the limit is reached
+ * the least recently used images are removed. Images that have been used since the current GameState was set are
+ * pinned and never removed, see unpinAll(). The instance of this class is located in the Loader.
+ *
+ * The memory used is counted per pixel buffer, so images sharing one buffer, like the regions of a TextureAtlas,
+ * count the whole buffer once while any of them is in the cache.
+ */
+public class ImageCache {
+    private static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+    private final LinkedHashMap<String, Entry> entries;     // Access ordered, eldest is least recently used
+    private final IdentityHashMap<DataBuffer, Integer> buffers;     // Number of entries using each pixel buffer
+    private long maxBytes;
+    private long bytes;
+
+    // Statistics
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ImageCache() {
+        entries = new LinkedHashMap<>(64, 0.75f, true);
+        buffers = new IdentityHashMap<>();
+        maxBytes = DEFAULT_MAX_BYTES;
+    }
+
+    /**
+     * An image in the cache with its pixel buffer and the size of the buffer in bytes.
+     */
+    private static class Entry {
+        private final BufferedImage image;
+        private final DataBuffer buffer;    // Shared by subimages, for example the regions of an atlas
+        private final long bytes;
+        private boolean pinned;
+
+        private Entry(BufferedImage image) {
+            this.image = image;
+            buffer = image.getRaster().getDataBuffer();
+            bytes = (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType())
+                    / 8;
+        }
+    }
+
+    /**
+     * Get an image and pin it. Counts as a hit or a miss.
+     *
+     * @param path String
+     * @return BufferedImage or null if the image isn't in the cache
+     */
+    public synchronized BufferedImage get(String path) {
+        BufferedImage image = peek(path);
+        if (image == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return image;
+    }
+
+    /**
+     * Get an image and pin it without counting it as a hit or miss.
+     *
+     * @param path String
+     * @return BufferedImage or null if the image isn't in the cache
+     */
+    public synchronized BufferedImage peek(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        entry.pinned = true;
+        return entry.image;
+    }
+
+    /**
+     * Add an image, replacing any image with the same path. Removes other images if the limit is reached.
+     *
+     * @param path String
+     * @param image BufferedImage
+     */
+    public synchronized void put(String path, BufferedImage image) {
+        Entry entry = new Entry(image);
+        Entry old = entries.put(path, entry);
+        if (old != null) {
+            release(old);
+        }
+        if (buffers.merge(entry.buffer, 1, Integer::sum) == 1) {
+            bytes += entry.bytes;
+        }
+        evict();
+    }
+
+    /**
+     * Stop counting the pixel buffer of a removed entry, unless other entries still use it.
+     *
+     * @param entry Entry
+     */
+    private void release(Entry entry) {
+        if (buffers.merge(entry.buffer, -1, Integer::sum) == 0) {
+            buffers.remove(entry.buffer);
+            bytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * Add an image if there is no image with the same path.
+     *
+     * @param path String
+     * @param image BufferedImage
+     * @return BufferedImage, the image already in the cache or the added image
+     */
+    public synchronized BufferedImage putIfAbsent(String path, BufferedImage image) {
+        BufferedImage existing = peek(path);
+        if (existing != null) {
+            return existing;
+        }
+        put(path, image);
+        return image;
+    }
+
+    /**
+     * Unpin all images. Called when the GameState changes so images only used by earlier states can be removed.
+     */
+    public synchronized void unpinAll() {
+        for (Entry entry : entries.values()) {
+            entry.pinned = false;
+        }
+        evict();
+    }
+
+    /**
+     * Remove least recently used images that aren't pinned until the cache is within its limit.
+     */
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.pinned) {
+                iterator.remove();
+                release(entry);
+                evictions++;
+            }
+        }
+    }
+
+    // Getter methods
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    // Setter methods
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+}
@@ -0,0 +1,99 @@
+package engine.subsystems;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring buffer of key events from the AWT event thread to the game thread. Only one thread may
+ * add events and only one thread may drain them. The events are stored in preallocated arrays, so adding an event
+ * never allocates or waits. When the buffer is full new events are dropped and counted.
+ */
+public class InputEventQueue {
+
+    /**
+     * Handles the events when the queue is drained.
+     */
+    public interface Handler {
+        void handle(int keyCode, boolean pressed, long time);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] keyCodes;
+    private final boolean[] pressed;
+    private final long[] times;     // System.nanoTime() when the event was added
+    private final AtomicLong head;  // Next event to handle, only moved by the consumer
+    private final AtomicLong tail;  // Next free place, only moved by the producer
+
+    // Statistics
+    private volatile long numDropped;   // Written by the producer
+    private long maxLatency;            // Written by the consumer, nanoseconds from offer() to drain()
+
+    /**
+     * Create a queue.
+     *
+     * @param capacity int, rounded up to a power of two
+     */
+    public InputEventQueue(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = this.capacity - 1;
+        keyCodes = new int[this.capacity];
+        pressed = new boolean[this.capacity];
+        times = new long[this.capacity];
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    /**
+     * Add an event. Called by the producer, never blocks.
+     *
+     * @param keyCode int
+     * @param pressed boolean, true if the key was pressed and false if it was released
+     * @return true if the event was added, false if the queue was full
+     */
+    public boolean offer(int keyCode, boolean pressed) {
+        long t = tail.get();
+        if (t - head.get() >= capacity) {
+            numDropped++;
+            return false;
+        }
+        int i = (int) t & mask;
+        keyCodes[i] = keyCode;
+        this.pressed[i] = pressed;
+        times[i] = System.nanoTime();
+        tail.lazySet(t + 1);    // Publishes the event to the consumer
+        return true;
+    }
+
+    /**
+     * Handle all events in the queue in the order they were added. Called by the consumer.
+     *
+     * @param handler Handler
+     * @return int, number of events handled
+     */
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        long now = System.nanoTime();
+        for (long j = h; j < t; j++) {
+            int i = (int) j & mask;
+            maxLatency = Math.max(maxLatency, now - times[i]);
+            handler.handle(keyCodes[i], pressed[i], times[i]);
+        }
+        head.lazySet(t);    // Frees the places for the producer
+        return (int) (t - h);
+    }
+
+    // Getter methods
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getNumDropped() {
+        return numDropped;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+}
@@ -5,14 +5,29 @@ import engine.Vector2;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 
 /**
  * Singleton class for handling keyboard and mouse input. The instance of the class is located in GameEngine.
  * All KeyEvents and MouseEvents in these methods are passed from methods in GameEngine.
+ *
+ * Key events from the AWT event thread are added to a lock-free InputEventQueue. The game loop calls update() once
+ * per update, which handles the events on the game thread and stores which keys are down in bitsets indexed by
+ * key code. Checking a key is then a lookup in the bitsets, and only the game thread reads or writes them.
  */
 public class InputManager {
+    private static final int NUM_KEY_CODES = 1 << 16;  // Key codes outside this range are ignored
+    private static final int EVENT_CAPACITY = 256;
+
     private static InputManager inputManager = new InputManager();
     private ArrayList<Key> gameKeys;    // Keys used in the game
+    private HashMap<String, Key> keysByName;    // First key added with each name, used by isKeyPressed(String)
+    private final InputEventQueue events;
+    private final InputEventQueue.Handler eventHandler;
+    private final long[] keysDown;      // Keys down after the last update, bit per key code
+    private final long[] keysPressed;   // Keys pressed since the update before, also if they were released again
+    private long lastEventTime;         // System.nanoTime() of the last key event handled
     private Key[] keys;                 // Keys that can be chosen from when changing keys in settings menu
     private ArrayList<MouseButton> mouseButtons;
     private MouseEvent lastClick;   // Last mouse click made. Can be used to check is buttons are clicked.
@@ -20,6 +35,11 @@ public class InputManager {
 
     private InputManager() {
         gameKeys = new ArrayList<>();
+        keysByName = new HashMap<>();
+        events = new InputEventQueue(EVENT_CAPACITY);
+        eventHandler = this::handleKeyEvent;
+        keysDown = new long[NUM_KEY_CODES / 64];
+        keysPressed = new long[NUM_KEY_CODES / 64];
         mouseButtons = new ArrayList<>();
         mousePosition = new Vector2();
 
@@ -46,6 +66,36 @@ public class InputManager {
      */
     public void addKey(Key key) {
         gameKeys.add(key);
+        keysByName.putIfAbsent(key.getName(), key);
+    }
+
+    /**
+     * Handle the key events since the last update. Called by the game loop before each update.
+     */
+    public void update() {
+        Arrays.fill(keysPressed, 0);
+        events.drain(eventHandler);
+    }
+
+    /**
+     * Update the bitsets with a key event.
+     *
+     * @param keyCode int
+     * @param pressed boolean
+     * @param time long
+     */
+    private void handleKeyEvent(int keyCode, boolean pressed, long time) {
+        if (keyCode < 0 || keyCode >= NUM_KEY_CODES) {
+            return;
+        }
+        long bit = 1L << keyCode;   // Only the low 6 bits are used by the shift
+        if (pressed) {
+            keysDown[keyCode >> 6] |= bit;
+            keysPressed[keyCode >> 6] |= bit;
+        } else {
+            keysDown[keyCode >> 6] &= ~bit;
+        }
+        lastEventTime = time;
     }
 
     /**
@@ -65,12 +115,32 @@ public class InputManager {
      * @return boolean isKeyPressed. True if key is being pressed, otherwise false.
      */
     public boolean isKeyPressed(String keyName) {
-        for (Key gameKey : gameKeys) {
-            if (keyName.equals(gameKey.getName())) {
-                return gameKey.isPressed();
-            }
+        Key key = keysByName.get(keyName);
+        return key != null && isKeyPressed(key.getKeyCode());
+    }
+
+    /**
+     * Returns true if a key is pressed.
+     *
+     * @param key Key
+     * @return boolean
+     */
+    public boolean isKeyPressed(Key key) {
+        return isKeyPressed(key.getKeyCode());
+    }
+
+    /**
+     * Returns true if the key with a key code is down, or was pressed since the last update even if it has been
+     * released, so short key presses aren't missed.
+     *
+     * @param keyCode int from KeyEvent
+     * @return boolean
+     */
+    public boolean isKeyPressed(int keyCode) {
+        if (keyCode < 0 || keyCode >= NUM_KEY_CODES) {
+            return false;
         }
-        return false;
+        return ((keysDown[keyCode >> 6] | keysPressed[keyCode >> 6]) & (1L << keyCode)) != 0;
     }
 
     /**
@@ -112,35 +182,26 @@ public class InputManager {
      * Set all keys to released.
      */
     public void resetInput() {
-        for (Key gameKey : gameKeys) {
-            gameKey.toggle(false);
-        }
+        Arrays.fill(keysDown, 0);
+        Arrays.fill(keysPressed, 0);
     }
 
     /**
-     * Set pressed to true if the key being pressed is used in the game.
+     * Add a key press to the event queue. Handled in the next update.
      *
      * @param e KeyEvent for the key being pressed.
      */
     public void keyPressed(KeyEvent e) {
-        for (Key gameKey : gameKeys) {
-            if (e.getKeyCode() == gameKey.getKeyCode()) {
-                gameKey.toggle(true);
-            }
-        }
+        events.offer(e.getKeyCode(), true);
     }
 
     /**
-     * Set pressed to false if the key being pressed is used in the game.
+     * Add a key release to the event queue. Handled in the next update.
      *
      * @param e KeyEvent for the key being released.
      */
     public void keyReleased(KeyEvent e) {
-        for (Key gameKey : gameKeys) {
-            if (e.getKeyCode() == gameKey.getKeyCode()) {
-                gameKey.toggle(false);
-            }
-        }
+        events.offer(e.getKeyCode(), false);
     }
 
     /**
@@ -207,13 +268,16 @@ public class InputManager {
         return keys;
     }
 
+    public InputEventQueue getEvents() {
+        return events;
+    }
+
+    public long getLastEventTime() {
+        return lastEventTime;
+    }
+
     public Key getKey(String name) {
-        for (Key k : gameKeys) {
-            if (k.getName().equals(name)) {
-                return k;
-            }
-        }
-        return null;
+        return keysByName.get(name);
     }
 
     // Setter methods
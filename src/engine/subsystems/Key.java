@@ -6,24 +6,12 @@ package engine.subsystems;
 public class Key {
     private String name;
     private int keyCode;
-    private boolean pressed;
 
     public Key(String name, int keyCode) {
         this.name = name;
         this.keyCode = keyCode;
     }
 
-    /**
-     * Toggle between pressed and released.
-     *
-     * @param toggle boolean
-     */
-    public void toggle(boolean toggle) {
-        if (pressed != toggle) {
-            pressed = toggle;
-        }
-    }
-
     // Getter methods
 
     public String getName() {
@@ -34,10 +22,6 @@ public class Key {
         return keyCode;
     }
 
-    public boolean isPressed() {
-        return pressed;
-    }
-
     // Setter methods
 
     public void setName(String name) {
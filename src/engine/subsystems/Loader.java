@@ -4,22 +4,50 @@ import engine.GameState;
 import engine.SoundClip;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Singleton class for loading images and sounds. Also used for storing and changing GameStates.
+ * Images and sounds can be preloaded on worker threads with preload(). Everything else is only called from the
+ * game loop thread.
  */
 public class Loader {
+    private static final String ATLAS_RESOURCES = "/atlas/";  // Atlases packed when the game is built
+    private static final File ATLAS_CACHE =     // Atlases packed on the first run if the built ones are missing or old
+            new File(System.getProperty("user.home"), ".cache/sp6-dsv/atlas");
     private static Loader loader = new Loader();
-    private HashMap<String, BufferedImage> images;
+    private ImageCache images;
+    private ConcurrentHashMap<String, CompletableFuture<Void>> pendingImages;   // Preloaded images and sounds
+    private ConcurrentHashMap<String, CompletableFuture<Void>> pendingAtlases;
+    private ExecutorService executor;   // Worker threads used for preloading, created when first needed
+    private final AtomicInteger numPreloads = new AtomicInteger();
+    private final AtomicInteger numPreloaded = new AtomicInteger();
+    private HashMap<String, VolatileImage> volatileImages;  // Flushed when the GameState changes
+    private WeakHashMap<BufferedImage, HashMap<String, BufferedImage>> scaledImages;   // Removed with the source
     private SoundManager soundManager;
     private HashMap<String, GameState> gameStates;
     private GameState currentGameState;
 
     private Loader() {
-        images = new HashMap<>();
+        images = new ImageCache();
+        pendingImages = new ConcurrentHashMap<>();
+        pendingAtlases = new ConcurrentHashMap<>();
+        volatileImages = new HashMap<>();
+        scaledImages = new WeakHashMap<>();
         soundManager = SoundManager.getInstance();
         gameStates = new HashMap<>();
     }
@@ -46,8 +74,13 @@ public class Loader {
      * @param name String
      */
     public void setGameState(String name) {
+        images.unpinAll();  // Images used by the new GameState are pinned again when it loads them
+        flushVolatileImages();  // Created again when the new GameState draws them
         currentGameState = gameStates.get(name);
         currentGameState.create();
+        if (currentGameState.getMusic() != null) {
+            soundManager.playMusic(currentGameState.getMusic());
+        }
     }
 
     /**
@@ -60,57 +93,473 @@ public class Loader {
     }
 
     /**
-     * Loads a BufferedImage from file. If file is already loaded, get it from HashMap images.
+     * Get the cache of loaded images. Can be used to change its memory limit or read its statistics.
+     *
+     * @return ImageCache
+     */
+    public ImageCache getImageCache() {
+        return images;
+    }
+
+    /**
+     * Load the images, atlases and sounds in the manifest on worker threads. Returns directly. Use getProgress() to
+     * see how much is loaded. If something is used before it's loaded, loadImage or loadSound waits until it is.
+     *
+     * @param manifest AssetManifest
+     */
+    public void preload(AssetManifest manifest) {
+        for (String directory : manifest.getAtlases()) {
+            submit(pendingAtlases, directory, () -> loadAtlas(directory));
+        }
+        for (String path : manifest.getImages()) {
+            submit(pendingImages, path, () -> {
+                BufferedImage image = readImage(path);
+                if (image != null) {
+                    images.putIfAbsent(path, image);
+                }
+            });
+        }
+        for (String path : manifest.getSounds()) {
+            submit(pendingImages, path, () -> {
+                if (!soundManager.containsSound(path)) {
+                    soundManager.addSound(path);
+                }
+            });
+        }
+    }
+
+    /**
+     * Run a preload task on a worker thread, unless something is already loading with the same key.
+     *
+     * @param pending map the task is added to
+     * @param key String with the path of the asset
+     * @param task Runnable that loads the asset
+     */
+    private void submit(ConcurrentHashMap<String, CompletableFuture<Void>> pending, String key, Runnable task) {
+        pending.computeIfAbsent(key, k -> {
+            numPreloads.incrementAndGet();
+            return CompletableFuture.runAsync(task, getExecutor()).whenComplete((result, e) -> {
+                if (e != null) {
+                    e.printStackTrace();
+                }
+                numPreloaded.incrementAndGet();
+            });
+        });
+    }
+
+    /**
+     * Wait until an image or sound is preloaded, if it's being preloaded. Also waits for an atlas containing it.
+     *
+     * @param path String
+     */
+    private void waitForPreload(String path) {
+        try {
+            CompletableFuture<Void> atlas = pendingAtlases.get(path.substring(0, path.lastIndexOf('/') + 1));
+            if (atlas != null) {
+                atlas.join();
+            }
+            CompletableFuture<Void> pending = pendingImages.get(path);
+            if (pending != null) {
+                pending.join();
+            }
+        } catch (CompletionException e) {
+            e.printStackTrace();    // Preloading failed, the asset is loaded again on this thread instead
+        }
+    }
+
+    /**
+     * Returns the executor used for preloading and other loading in the background, like streaming levels.
+     * Has one daemon thread per processor.
+     *
+     * @return ExecutorService
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "Loader");
+                thread.setDaemon(true);     // Don't keep the game running when the window is closed
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Returns how much of the preloaded assets are loaded.
+     *
+     * @return double between 0 and 1, 1 if everything is loaded or nothing has been preloaded
+     */
+    public double getProgress() {
+        int preloads = numPreloads.get();
+        return preloads == 0 ? 1 : numPreloaded.get() / (double) preloads;
+    }
+
+    /**
+     * Check if all preloaded assets are loaded.
+     *
+     * @return boolean
+     */
+    public boolean isPreloaded() {
+        return numPreloaded.get() == numPreloads.get();
+    }
+
+    /**
+     * Loads a BufferedImage from file. If file is already loaded, get it from the ImageCache images.
+     * If the image is being preloaded this waits until it's ready.
+     * The image is converted to the format of the screen so it doesn't have to be converted every time it's drawn.
      *
      * @param path String with the filepath
      * @return BufferedImage or null if the filepath is wrong
      */
     public BufferedImage loadImage(String path) {
-        try {
-            if (images.containsKey(path)) {
-                return images.get(path);
-            } else {
-                images.put(path, ImageIO.read(getClass().getResourceAsStream(path)));
-                return images.get(path);
+        BufferedImage image = images.get(path);
+        if (image == null) {
+            waitForPreload(path);
+            image = images.peek(path);
+        }
+        if (image == null) {
+            image = readImage(path);
+            if (image != null) {
+                image = images.putIfAbsent(path, image);
             }
+        }
+        return image;
+    }
+
+    /**
+     * Read an image from file and convert it to the format of the screen.
+     *
+     * @param path String with the filepath
+     * @return BufferedImage or null if the image can't be read
+     */
+    private BufferedImage readImage(String path) {
+        InputStream inputStream = getClass().getResourceAsStream(path);
+        if (inputStream == null) {
+            System.err.println("Image " + path + " not found");
+            return null;
+        }
+        try (InputStream in = inputStream) {
+            return toCompatibleImage(ImageIO.read(in));     // ImageIO returns null if the format isn't supported
         } catch (IOException e) {
             e.printStackTrace();
         }
         return null;
     }
 
+    /**
+     * Packs the images directory + "0.png", directory + "1.png" and so on into one TextureAtlas. After this,
+     * loadImage returns regions of the atlas for these paths. The atlas is normally packed when the game is built,
+     * see AtlasPacker. If that atlas is missing, older than an image or has another number of images, the atlas is
+     * packed now and saved in a cache directory, so later runs only have to read one file. Not being able to save it
+     * only means it's packed again next time.
+     *
+     * @param directory String with the path of the images, ending with /
+     */
+    public void loadAtlas(String directory) {
+        String name = TextureAtlas.getName(directory);
+        File imageFile = new File(ATLAS_CACHE, name + ".png");
+        File indexFile = new File(ATLAS_CACHE, name + ".txt");
+
+        // Find the images and the time the newest of them was changed
+        int numSources = 0;
+        long newestSource = 0;
+        URL source;
+        while ((source = getClass().getResource(directory + numSources + ".png")) != null) {
+            newestSource = Math.max(newestSource, getLastModified(source));
+            numSources++;
+        }
+
+        TextureAtlas atlas = readAtlas(getClass().getResource(ATLAS_RESOURCES + name + ".png"),
+                getClass().getResource(ATLAS_RESOURCES + name + ".txt"), numSources, newestSource);
+        if (atlas == null && imageFile.exists() && indexFile.exists()) {
+            try {
+                atlas = readAtlas(imageFile.toURI().toURL(), indexFile.toURI().toURL(), numSources, newestSource);
+            } catch (MalformedURLException e) {
+                e.printStackTrace();
+            }
+        }
+        if (atlas == null) {
+            ArrayList<BufferedImage> sources = new ArrayList<>();
+            InputStream inputStream;
+            while ((inputStream = getClass().getResourceAsStream(directory + sources.size() + ".png")) != null) {
+                try (InputStream in = inputStream) {
+                    sources.add(ImageIO.read(in));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+            if (sources.isEmpty()) {
+                return;
+            }
+            atlas = TextureAtlas.pack(sources.toArray(new BufferedImage[0]));
+            try {
+                atlas.save(imageFile, indexFile);
+            } catch (IOException | SecurityException e) {
+                System.err.println("Atlas " + name + " not saved in " + ATLAS_CACHE + ": " + e.getMessage());
+            }
+        }
+
+        BufferedImage atlasImage = toCompatibleImage(atlas.getImage());
+        for (int i = 0; i < atlas.getNumRegions(); i++) {
+            images.put(directory + i + ".png", atlas.getRegion(atlasImage, i));
+        }
+    }
+
+    /**
+     * Read a saved atlas if it's up to date.
+     *
+     * @param imageUrl URL of the atlas image, or null if there is none
+     * @param indexUrl URL of the atlas index, or null if there is none
+     * @param numSources int, number of images that should be in the atlas
+     * @param newestSource long, time the newest of the images was changed
+     * @return TextureAtlas or null if it's missing, older than an image or has another number of images
+     */
+    private TextureAtlas readAtlas(URL imageUrl, URL indexUrl, int numSources, long newestSource) {
+        if (imageUrl == null || indexUrl == null
+                || Math.min(getLastModified(imageUrl), getLastModified(indexUrl)) < newestSource) {
+            return null;
+        }
+        TextureAtlas atlas = TextureAtlas.load(imageUrl, indexUrl);
+        if (atlas != null && atlas.getNumRegions() != numSources) {
+            return null;
+        }
+        return atlas;
+    }
+
+    /**
+     * Returns the time a resource was last changed.
+     *
+     * @param url URL of the resource
+     * @return long with the time in milliseconds since the epoch, or 0 if it isn't known
+     */
+    private long getLastModified(URL url) {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return new File(url.toURI()).lastModified();
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                e.printStackTrace();
+                return 0;
+            }
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);     // Don't keep the jar file open
+            long time = connection.getLastModified();
+            connection.getInputStream().close();
+            return time;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns an image stored in video memory, created from the image loaded from path. The image is checked and
+     * restored if its contents were lost, so this should be called every time before the image is drawn.
+     * Best used for large images without transparency like backgrounds. Without a screen the BufferedImage is
+     * returned.
+     *
+     * @param path String with the filepath
+     * @return Image or null if the filepath is wrong
+     */
+    public Image loadVolatileImage(String path) {
+        BufferedImage source = loadImage(path);
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (source == null || config == null) {
+            return source;
+        }
+
+        VolatileImage image = volatileImages.get(path);
+        int status = image == null ? VolatileImage.IMAGE_INCOMPATIBLE : image.validate(config);
+
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {   // Not created yet or screen has changed
+            if (image != null) {
+                image.flush();
+            }
+            image = config.createCompatibleVolatileImage(
+                    source.getWidth(), source.getHeight(), source.getTransparency());
+            volatileImages.put(path, image);
+            status = VolatileImage.IMAGE_RESTORED;
+        }
+
+        if (status == VolatileImage.IMAGE_RESTORED) {   // Contents are new or lost, copy them from the source
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(source, 0, 0, null);
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * Release the video memory of all volatile images. They are created again by loadVolatileImage.
+     */
+    private void flushVolatileImages() {
+        for (VolatileImage image : volatileImages.values()) {
+            image.flush();
+        }
+        volatileImages.clear();
+    }
+
+    /**
+     * Convert an image to the format of the screen. Images that already have the right format or images loaded
+     * without a screen are returned as they are.
+     *
+     * @param image BufferedImage
+     * @return BufferedImage with the same format as the screen
+     */
+    private BufferedImage toCompatibleImage(BufferedImage image) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (image == null || config == null
+                || image.getColorModel().equals(config.getColorModel(image.getTransparency()))) {
+            return image;
+        }
+
+        BufferedImage compatible = config.createCompatibleImage(
+                image.getWidth(), image.getHeight(), image.getTransparency());
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+
+    /**
+     * Returns the GraphicsConfiguration of the screen.
+     *
+     * @return GraphicsConfiguration or null if there is no screen
+     */
+    private GraphicsConfiguration getGraphicsConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    /**
+     * Returns a copy of an image scaled to width and height, and mirrored horizontally if mirrored is true.
+     * The copy is made once and then reused, so the image can be drawn without scaling every frame.
+     *
+     * @param image BufferedImage
+     * @param width int
+     * @param height int
+     * @param mirrored boolean
+     * @return BufferedImage
+     */
+    public BufferedImage loadScaledImage(BufferedImage image, int width, int height, boolean mirrored) {
+        if (image.getWidth() == width && image.getHeight() == height && !mirrored) {
+            return image;
+        }
+
+        HashMap<String, BufferedImage> variants = scaledImages.computeIfAbsent(image, k -> new HashMap<>());
+        String key = width + "x" + height + (mirrored ? "m" : "");
+        BufferedImage scaled = variants.get(key);
+        if (scaled == null) {
+            scaled = scaleImage(image, width, height, mirrored);
+            variants.put(key, scaled);
+        }
+        return scaled;
+    }
+
+    /**
+     * Scale an image. When making an image smaller it's halved in steps to keep the quality of the image.
+     *
+     * @param image BufferedImage
+     * @param width int
+     * @param height int
+     * @param mirrored boolean
+     * @return BufferedImage
+     */
+    private BufferedImage scaleImage(BufferedImage image, int width, int height, boolean mirrored) {
+        BufferedImage result = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+
+        do {
+            if (currentWidth > width * 2) {
+                currentWidth /= 2;
+            } else {
+                currentWidth = width;
+            }
+            if (currentHeight > height * 2) {
+                currentHeight /= 2;
+            } else {
+                currentHeight = height;
+            }
+
+            boolean lastStep = currentWidth == width && currentHeight == height;
+            BufferedImage step = createImage(currentWidth, currentHeight, image.getTransparency());
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            if (lastStep && mirrored) {
+                g.drawImage(result, currentWidth, 0, -currentWidth, currentHeight, null);
+            } else {
+                g.drawImage(result, 0, 0, currentWidth, currentHeight, null);
+            }
+            g.dispose();
+            result = step;
+        } while (currentWidth != width || currentHeight != height);
+
+        return result;
+    }
+
+    /**
+     * Create an empty image in the format of the screen.
+     *
+     * @param width int
+     * @param height int
+     * @param transparency int, one of the constants in Transparency
+     * @return BufferedImage
+     */
+    public BufferedImage createImage(int width, int height, int transparency) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        return config.createCompatibleImage(width, height, transparency);
+    }
+
     /**
      * Splits a sprite sheet into single images and loads it in an array.
      * The array can be used for animations or to draw a tilemap.
+     * The single images are kept in the ImageCache like the regions of an atlas, so the sprite sheet is only split
+     * again if they have been removed. They share the pixels of the sprite sheet, which are counted once.
      *
      * @param path String
      * @param rows int
      * @param columns int
      * @param numImages int
-     * @return BufferImage[]
+     * @return BufferImage[] or null if the sprite sheet can't be loaded or has fewer images
      */
     public BufferedImage[] loadSpriteSheet(String path, int rows, int columns, int numImages) {
+        String key = path + ":" + rows + ":" + columns + ":";   // Followed by the index of the single image
+        BufferedImage[] result = new BufferedImage[numImages];
+        int index = 0;
+        while (index < numImages && (result[index] = images.peek(key + index)) != null) {
+            index++;
+        }
+        if (index == numImages) {
+            return result;
+        }
 
         // Load sprite sheet
         BufferedImage spriteSheet = loadImage(path);
+        if (spriteSheet == null || numImages > rows * columns) {
+            return null;
+        }
         int width = spriteSheet.getWidth() / columns;   // Width of the subimages
         int height = spriteSheet.getHeight() / rows;    // Height of the subimages
 
         // Put single images from sprite sheet in array
-        BufferedImage subimage;
-        BufferedImage[] result = new BufferedImage[numImages];
-        int index = 0;
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < columns; col++) {
-                subimage = spriteSheet.getSubimage(col * width, row * height, width, height);
-                result[index] = subimage;
-                index++;
-                if (index == numImages) {
-                    return result;
-                }
-            }
+        for (index = 0; index < numImages; index++) {
+            int row = index / columns;
+            int col = index % columns;
+            result[index] = spriteSheet.getSubimage(col * width, row * height, width, height);
+            images.put(key + index, result[index]);
         }
-        return null;
+        return result;
     }
 
     /**
@@ -141,13 +590,26 @@ public class Loader {
         return result;
     }
 
+    /**
+     * Crossfade to a music track. The music is streamed, so it doesn't have to be loaded.
+     *
+     * @param path String with the filepath, or null to fade out the music
+     */
+    public void playMusic(String path) {
+        soundManager.playMusic(path);
+    }
+
     /**
      * Loads a SoundClip from file. If file is already loaded, get it from HashMap sounds.
+     * If the sound is being preloaded this waits until it's ready.
      *
      * @param path String with the filepath
      * @return SoundClip
      */
     public SoundClip loadSound(String path) {
+        if (!soundManager.containsSound(path)) {
+            waitForPreload(path);
+        }
         if (soundManager.containsSound(path)) {
             return soundManager.getSound(path);
         } else {
@@ -0,0 +1,276 @@
+package engine.subsystems;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams background music into the AudioMixer. A daemon music thread decodes the track in small chunks into a
+ * ring buffer of about 0.2 s, which the audio thread mixes with the sound effects. The memory used doesn't depend
+ * on the length of the track. The music thread sleeps until the audio thread has made room in the ring buffer,
+ * and while no music is playing until a track is requested.
+ *
+ * Tracks loop without a gap by opening the track again when it ends and continuing in the same chunk. Changing
+ * track fades the playing track out while the new track fades in. The crossfade is heard once the audio thread has
+ * played the samples already in the ring buffer, so the ring buffer is kept short.
+ */
+public class MusicPlayer implements Runnable {
+    private static final int RING_SAMPLES = 1 << 14;    // About 0.19 s of stereo samples
+    private static final int CHUNK_FRAMES = 1024;       // Frames decoded at a time, about 23 ms
+    private static final int CROSSFADE_FRAMES = 44100 * 3 / 2;     // 1.5 s
+
+    private final short[] ring;
+    private final AtomicLong written;   // Samples written to the ring buffer, only moved by the music thread
+    private final AtomicLong read;      // Samples read from the ring buffer, only moved by the audio thread
+    private final byte[] chunk;
+    private final short[] fading;       // Chunk of the track fading out
+    private volatile Thread thread;
+    private final AtomicReference<String> requestedPath;   // Track the game wants to play, null for silence
+    private volatile float volume;
+
+    // Only used by the music thread
+    private Track track;            // Playing track
+    private Track fadingTrack;      // Previous track, fading out
+    private int fadePosition;       // Frames of the crossfade played
+
+    // Statistics
+    private volatile int numUnderruns;  // Buffers mixed before the music thread had decoded enough
+
+    public MusicPlayer() {
+        ring = new short[RING_SAMPLES];
+        written = new AtomicLong();
+        read = new AtomicLong();
+        requestedPath = new AtomicReference<>();
+        chunk = new byte[CHUNK_FRAMES * AudioMixer.CHANNELS * 2];
+        fading = new short[CHUNK_FRAMES * AudioMixer.CHANNELS];
+        volume = 1;
+    }
+
+    /**
+     * A track being decoded. Opened again from the start when it ends.
+     */
+    private static class Track {
+        private final String path;
+        private AudioInputStream stream;
+
+        private Track(String path) throws IOException, UnsupportedAudioFileException {
+            this.path = path;
+            open();
+        }
+
+        private void open() throws IOException, UnsupportedAudioFileException {
+            InputStream audioSource = MusicPlayer.class.getResourceAsStream(path);
+            if (audioSource == null) {
+                throw new IOException("Sound not found: " + path);
+            }
+            AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(audioSource));
+            stream = AudioSystem.getAudioInputStream(AudioMixer.FORMAT, ais);
+        }
+
+        /**
+         * Fill a buffer with the next part of the track, starting over when the track ends.
+         *
+         * @param buffer byte[]
+         */
+        private void read(byte[] buffer) throws IOException, UnsupportedAudioFileException {
+            int filled = 0;
+            boolean reopened = false;
+            while (filled < buffer.length) {
+                int n = stream.read(buffer, filled, buffer.length - filled);
+                if (n > 0) {
+                    filled += n;
+                    reopened = false;
+                } else if (n < 0) {
+                    if (reopened) {     // Empty track
+                        Arrays.fill(buffer, filled, buffer.length, (byte) 0);
+                        return;
+                    }
+                    stream.close();
+                    open();
+                    reopened = true;
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Crossfade to a track, or fade out if path is null. Does nothing if the track is already playing.
+     * Returns directly, the track is opened on the music thread.
+     *
+     * @param path String with the path of the track, or null
+     */
+    public synchronized void play(String path) {
+        requestedPath.set(path);
+        if (thread == null && path != null) {
+            thread = new Thread(this, "Music");
+            thread.setDaemon(true);     // Don't keep the game running when the window is closed
+            thread.start();
+        } else if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Music thread. Decodes chunks while there is room in the ring buffer, otherwise sleeps until it's woken by
+     * mix() or play().
+     */
+    @Override
+    public void run() {
+        short[] samples = new short[CHUNK_FRAMES * AudioMixer.CHANNELS];
+        while (true) {
+            if (RING_SAMPLES - (written.get() - read.get()) < samples.length) {
+                LockSupport.park(this);
+                continue;
+            }
+            changeTrack();
+            if (track == null && fadingTrack == null) {     // Nothing to play
+                LockSupport.park(this);
+                continue;
+            }
+            decode(samples);
+
+            long position = written.get();
+            for (int i = 0; i < samples.length; i++) {
+                ring[(int) (position + i) & (RING_SAMPLES - 1)] = samples[i];
+            }
+            written.lazySet(position + samples.length);     // Publishes the samples to the audio thread
+        }
+    }
+
+    /**
+     * Start a crossfade if the requested track has changed.
+     */
+    private void changeTrack() {
+        String path = requestedPath.get();
+        String playing = track != null ? track.path : null;
+        if (path == null ? playing == null : path.equals(playing)) {
+            return;
+        }
+
+        if (fadingTrack != null) {  // Changed again during a crossfade, the track fading out is dropped
+            fadingTrack.close();
+        }
+        fadingTrack = track;
+        fadePosition = 0;
+        track = null;
+        if (path != null) {
+            try {
+                track = new Track(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+                requestedPath.compareAndSet(path, null);    // Don't try again, unless another track was requested
+            } catch (UnsupportedAudioFileException e) {
+                e.printStackTrace();
+                requestedPath.compareAndSet(path, null);
+            } catch (IllegalArgumentException e) {  // The track can't be converted to the format of the mixer
+                e.printStackTrace();
+                requestedPath.compareAndSet(path, null);
+            }
+        }
+    }
+
+    /**
+     * Decode the next chunk of the playing track, mixed with the track fading out.
+     *
+     * @param samples short[] filled with interleaved stereo samples
+     */
+    private void decode(short[] samples) {
+        readTrack(track, samples);
+        if (fadingTrack == null) {
+            return;
+        }
+
+        readTrack(fadingTrack, fading);
+        for (int frame = 0; frame < CHUNK_FRAMES; frame++) {
+            float in = Math.min(1, (fadePosition + frame) / (float) CROSSFADE_FRAMES);
+            for (int c = 0; c < AudioMixer.CHANNELS; c++) {
+                int i = frame * AudioMixer.CHANNELS + c;
+                samples[i] = (short) (samples[i] * in + fading[i] * (1 - in));
+            }
+        }
+        fadePosition += CHUNK_FRAMES;
+        if (fadePosition >= CROSSFADE_FRAMES) {
+            fadingTrack.close();
+            fadingTrack = null;
+        }
+    }
+
+    /**
+     * Read a chunk of a track into samples, silence if there is no track or it can't be read.
+     *
+     * @param track Track, or null
+     * @param samples short[]
+     */
+    private void readTrack(Track track, short[] samples) {
+        if (track != null) {
+            try {
+                track.read(chunk);
+                for (int i = 0; i < samples.length; i++) {  // Little endian
+                    samples[i] = (short) ((chunk[2 * i] & 0xFF) | (chunk[2 * i + 1] << 8));
+                }
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (UnsupportedAudioFileException e) {
+                e.printStackTrace();
+            }
+        }
+        Arrays.fill(samples, (short) 0);
+    }
+
+    /**
+     * Add the next samples of the music to a mix. Called by the audio thread of the AudioMixer.
+     *
+     * @param mix int[] with interleaved stereo samples
+     */
+    public void mix(int[] mix) {
+        long position = read.get();
+        int available = (int) Math.min(mix.length, written.get() - position);
+        if (available < mix.length && requestedPath.get() != null) {
+            numUnderruns++;
+        }
+        int gain = (int) (volume * 256);    // 8 bits fixed point
+        for (int i = 0; i < available; i++) {
+            mix[i] += (ring[(int) (position + i) & (RING_SAMPLES - 1)] * gain) >> 8;
+        }
+        read.lazySet(position + available);     // Frees the samples for the music thread
+        if (available > 0) {
+            LockSupport.unpark(thread);     // Decode more, the music thread sleeps while the ring buffer is full
+        }
+    }
+
+    // Getter methods
+
+    public String getRequestedPath() {
+        return requestedPath.get();
+    }
+
+    public float getVolume() {
+        return volume;
+    }
+
+    public int getNumUnderruns() {
+        return numUnderruns;
+    }
+
+    // Setter methods
+
+    public void setVolume(float volume) {
+        this.volume = volume;
+    }
+}
@@ -2,25 +2,66 @@ package engine.subsystems;
 
 import engine.GameObject;
 import engine.Vector2;
-import javafx.scene.shape.Circle;
-
-import java.awt.*;
 
 /**
  * Singleton class for handling collisions and forces like gravity.
  */
 public class PhysicsManager {
+
+    // Broad phase algorithms that can be created with createBroadPhase()
+    public enum BroadPhaseType {
+        SPATIAL_HASH,
+        SWEEP_AND_PRUNE
+    }
+
     private static PhysicsManager physicsManager = new PhysicsManager();
     private double gravity;
+    private BroadPhaseType broadPhaseType;
 
     private PhysicsManager() {
         gravity = 0;    // Default gravity
+        broadPhaseType = BroadPhaseType.SPATIAL_HASH;
     }
 
     public static PhysicsManager getInstance() {
         return physicsManager;
     }
 
+    /**
+     * Create a broad phase of the selected BroadPhaseType. Used to find which objects could collide before checking
+     * them with the collision methods in this class.
+     *
+     * @param cellSize int, size of the cells in a SPATIAL_HASH. The tile size is a good choice.
+     * @param <T> type of the game objects
+     * @return BroadPhase
+     */
+    public <T extends GameObject> BroadPhase<T> createBroadPhase(int cellSize) {
+        return createBroadPhase(broadPhaseType, cellSize);
+    }
+
+    /**
+     * Create a broad phase of a given BroadPhaseType.
+     *
+     * @param type BroadPhaseType
+     * @param cellSize int, size of the cells in a SPATIAL_HASH, not used by SWEEP_AND_PRUNE
+     * @param <T> type of the game objects
+     * @return BroadPhase
+     */
+    public <T extends GameObject> BroadPhase<T> createBroadPhase(BroadPhaseType type, int cellSize) {
+        switch (type) {
+            case SWEEP_AND_PRUNE:
+                return new SweepAndPrune<>();
+            case SPATIAL_HASH:
+            default:
+                return new SpatialHash<>(cellSize);
+        }
+    }
+
+    /*
+     * The collision methods below only use primitives so checking collisions doesn't allocate any objects.
+     * The GameObject versions read the bounds directly from the objects and call the primitive versions.
+     */
+
     /**
      * Checks collision between the surrounding rectangles of two game objects.
      *
@@ -29,7 +70,29 @@ public class PhysicsManager {
      * @return true if the GameObjects collide
      */
     public static boolean rectangleRectangleCollision(GameObject gameObject1, GameObject gameObject2) {
-        return gameObject1.getRectangle().intersects(gameObject2.getRectangle());
+        return rectangleRectangleCollision(
+                gameObject1.getX(), gameObject1.getY(), gameObject1.getWidth(), gameObject1.getHeight(),
+                gameObject2.getX(), gameObject2.getY(), gameObject2.getWidth(), gameObject2.getHeight());
+    }
+
+    /**
+     * Checks collision between two rectangles. Rectangles that only touch at an edge don't collide.
+     *
+     * @param x1 double, left edge of the first rectangle
+     * @param y1 double, top edge of the first rectangle
+     * @param width1 double
+     * @param height1 double
+     * @param x2 double, left edge of the second rectangle
+     * @param y2 double, top edge of the second rectangle
+     * @param width2 double
+     * @param height2 double
+     * @return true if the rectangles intersect
+     */
+    public static boolean rectangleRectangleCollision(double x1, double y1, double width1, double height1,
+                                                      double x2, double y2, double width2, double height2) {
+        return width1 > 0 && height1 > 0 && width2 > 0 && height2 > 0 &&
+                x1 < x2 + width2 && x2 < x1 + width1 &&
+                y1 < y2 + height2 && y2 < y1 + height1;
     }
 
     /**
@@ -40,27 +103,42 @@ public class PhysicsManager {
      * @return true if the GameObjects collide
      */
     public static boolean circleCircleCollision(GameObject gameObject1, GameObject gameObject2) {
-        Circle c1 = gameObject1.getCircle();
-        Circle c2 = gameObject2.getCircle();
+        return circleCircleCollision(
+                gameObject1.getCenterX(), gameObject1.getCenterY(), gameObject1.getRadius(),
+                gameObject2.getCenterX(), gameObject2.getCenterY(), gameObject2.getRadius());
+    }
 
-        return(c1.getRadius() + c2.getRadius() >=
-                pointDistance(c1.getCenterX(), c1.getCenterY(), c2.getCenterX(), c2.getCenterY()));
+    /**
+     * Checks collision between two circles. Compares squared distances so no square root is needed.
+     *
+     * @param x1 double, horizontal center of the first circle
+     * @param y1 double, vertical center of the first circle
+     * @param radius1 double
+     * @param x2 double, horizontal center of the second circle
+     * @param y2 double, vertical center of the second circle
+     * @param radius2 double
+     * @return true if the circles touch or intersect
+     */
+    public static boolean circleCircleCollision(double x1, double y1, double radius1,
+                                                double x2, double y2, double radius2) {
+        double radii = radius1 + radius2;
+        return pointDistanceSquared(x1, y1, x2, y2) <= radii * radii;
     }
 
     /**
-     * Helper method for calculating the distance between the center of two circles.
+     * Helper method for calculating the squared distance between two points.
      *
      * @param x1 double
      * @param y1 double
      * @param x2 double
      * @param y2 double
-     * @return double with the distance between two points
+     * @return double with the squared distance between two points
      */
-    private static double pointDistance(double x1, double y1, double x2, double y2) {
-        double differenceX = Math.abs(x1 - x2);
-        double differenceY = Math.abs(y1 - y2);
+    public static double pointDistanceSquared(double x1, double y1, double x2, double y2) {
+        double differenceX = x1 - x2;
+        double differenceY = y1 - y2;
 
-        return Math.sqrt(Math.pow(differenceX, 2) + (Math.pow(differenceY, 2)));
+        return differenceX * differenceX + differenceY * differenceY;
     }
 
     /**
@@ -71,10 +149,24 @@ public class PhysicsManager {
      * @return true if gameObject and point is colliding
      */
     public static boolean rectanglePointCollision(GameObject gameObject, Vector2 point) {
-        Rectangle rectangle = gameObject.getRectangle();
+        return rectanglePointCollision(gameObject.getX(), gameObject.getY(), gameObject.getWidth(),
+                gameObject.getHeight(), point.x, point.y);
+    }
 
-        return(point.x >= rectangle.x && point.x < rectangle.x + rectangle.width
-                && point.y >= rectangle.y && point.y < rectangle.y + rectangle.height);
+    /**
+     * Checks collision between a rectangle and a point. Points on the right or bottom edge are outside.
+     *
+     * @param x double, left edge of the rectangle
+     * @param y double, top edge of the rectangle
+     * @param width double
+     * @param height double
+     * @param pointX double
+     * @param pointY double
+     * @return true if the point is inside the rectangle
+     */
+    public static boolean rectanglePointCollision(double x, double y, double width, double height,
+                                                  double pointX, double pointY) {
+        return(pointX >= x && pointX < x + width && pointY >= y && pointY < y + height);
     }
 
     /**
@@ -86,7 +178,21 @@ public class PhysicsManager {
      * @return true if distance between point1 and point2 is less the tolerance
      */
     public static boolean pointPointCollision(Vector2 point1, Vector2 point2, int tolerance) {
-        return(Math.abs(point1.x - point2.x) <= tolerance && Math.abs(point1.y - point2.y) <= tolerance);
+        return pointPointCollision(point1.x, point1.y, point2.x, point2.y, tolerance);
+    }
+
+    /**
+     * Check collision between two points.
+     *
+     * @param x1 double
+     * @param y1 double
+     * @param x2 double
+     * @param y2 double
+     * @param tolerance double representing the distance between the points that should be considered a collision
+     * @return true if distance between the points is less the tolerance on both axes
+     */
+    public static boolean pointPointCollision(double x1, double y1, double x2, double y2, double tolerance) {
+        return(Math.abs(x1 - x2) <= tolerance && Math.abs(y1 - y2) <= tolerance);
     }
 
     /**
@@ -97,33 +203,56 @@ public class PhysicsManager {
      * @return true if gameObject1 and gameObject2 intersects
      */
     public static boolean circleRectangleCollision(GameObject rectangle, GameObject circle) {
-        Rectangle r = rectangle.getRectangle();
-        Circle c = circle.getCircle();
-        Vector2 distance = new Vector2();
+        return circleRectangleCollision(rectangle.getX(), rectangle.getY(), rectangle.getWidth(),
+                rectangle.getHeight(), circle.getCenterX(), circle.getCenterY(), circle.getRadius());
+    }
+
+    /**
+     * Check collision between a circle and a rectangle.
+     *
+     * @param x double, left edge of the rectangle
+     * @param y double, top edge of the rectangle
+     * @param width double
+     * @param height double
+     * @param circleX double, horizontal center of the circle
+     * @param circleY double, vertical center of the circle
+     * @param radius double
+     * @return true if the circle and the rectangle intersects
+     */
+    public static boolean circleRectangleCollision(double x, double y, double width, double height,
+                                                   double circleX, double circleY, double radius) {
+        double halfWidth = width / 2;
+        double halfHeight = height / 2;
 
-        // Get the absolute distance between the center of the two game objects
-        distance.x = Math.abs(c.getCenterX() - rectangle.getCenter().x);
-        distance.y = Math.abs(c.getCenterY() - rectangle.getCenter().y);
+        // Get the absolute distance between the center of the circle and the rectangle
+        double distanceX = Math.abs(circleX - (x + halfWidth));
+        double distanceY = Math.abs(circleY - (y + halfHeight));
 
         // If distance is greater then circle radius plus half of rectangles width or height, return false
-        if (distance.x > (r.width / 2 + c.getRadius())) { return false; }
-        if (distance.y > (r.height / 2 + c.getRadius())) { return false; }
-
-        // If Vector2 distance is inside the rectangle, return true
-        if (distance.x <= (r.width/2)) { return true; }
-        if (distance.y <= (r.height/2)) { return true; }
+        if (distanceX > halfWidth + radius) { return false; }
+        if (distanceY > halfHeight + radius) { return false; }
 
-        double distanceSquared = (Math.pow(distance.x - r.width / 2, 2) +
-                Math.pow(distance.y - r.height / 2, 2));
+        // If the center of the circle is inside the rectangle, return true
+        if (distanceX <= halfWidth) { return true; }
+        if (distanceY <= halfHeight) { return true; }
 
-        return (distanceSquared <= Math.pow(c.getRadius(), 2));
+        // Otherwise the circle can only reach the rectangle at its corner
+        return pointDistanceSquared(distanceX, distanceY, halfWidth, halfHeight) <= radius * radius;
     }
 
     public double getGravity() {
         return gravity;
     }
 
+    public BroadPhaseType getBroadPhaseType() {
+        return broadPhaseType;
+    }
+
     public void setGravity(double gravity) {
         this.gravity = gravity;
     }
+
+    public void setBroadPhaseType(BroadPhaseType broadPhaseType) {
+        this.broadPhaseType = broadPhaseType;
+    }
 }
@@ -1,80 +1,70 @@
 package engine.subsystems;
 
-import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
 
 /**
- * This class creates a JFrame and draws images on it.
- * The Graphics2D object in this class should be used for all drawing.
+ * Interface for the render backend of the game engine. The instance is located in GameEngine.
+ * The Graphics2D object returned by getGraphics2D() should be used for all drawing.
  */
-public class Renderer extends JFrame {
-    private BufferedImage image;
-    private Graphics2D graphics2D;
-    private int width, height;
-    private boolean fullscreen;
+public interface Renderer {
 
     /**
-     * Constructor initializing JFrame with a fixed width and height.
+     * Show everything that has been drawn since the last call.
+     *
+     * @return true if the frame was shown, false if it was lost and should be drawn again
      */
-    public Renderer(int width, int height) {
-        this.width = width;
-        this.height = height;
-        fullscreen = false;
-        setPreferredSize(new Dimension(width, height));
-        setVisible(true);
-        pack();
-        init();
-    }
+    boolean render();
 
     /**
-     * Constructor initializing JFrame in fullscreen.
+     * Add a KeyListener that receives the keyboard input of the game.
+     *
+     * @param listener KeyListener
      */
-    public Renderer() {
-        GraphicsEnvironment environment = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        GraphicsDevice device = environment.getDefaultScreenDevice();
-        setUndecorated(true);
-        device.setFullScreenWindow(this);
-        this.width = device.getFullScreenWindow().getWidth();
-        this.height = device.getFullScreenWindow().getHeight();
-        fullscreen = true;
-        init();
-    }
+    void addKeyListener(KeyListener listener);
 
     /**
-     * Variables and attributes used by both fullscreen and windowed constructors.
+     * Add a MouseListener that receives the mouse clicks of the game.
+     *
+     * @param listener MouseListener
      */
-    private void init() {
-        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        graphics2D = (Graphics2D) image.getGraphics();
-        setResizable(false);
-        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-    }
+    void addMouseListener(MouseListener listener);
 
     /**
-     * Renders the screen with BufferedImage image.
+     * Add a MouseMotionListener that receives the mouse movement of the game.
+     *
+     * @param listener MouseMotionListener
      */
-    public void render() {
-        Graphics g = getGraphics();
-        g.drawImage(image, 0, 0, null);
-        g.dispose();
-    }
+    void addMouseMotionListener(MouseMotionListener listener);
 
-    // Getter methods
+    /**
+     * Returns the container dialogs can be shown in, or null if there is no window.
+     *
+     * @return Container
+     */
+    Container getContentPane();
+
+    Graphics2D getGraphics2D();
+
+    boolean isFullscreen();
 
-    public Graphics2D getGraphics2D() {
-        return graphics2D;
-    }
+    int getScreenWidth();
 
-    public boolean isFullscreen() {
-        return fullscreen;
-    }
+    int getScreenHeight();
 
-    public int getScreenWidth() {
-        return width;
-    }
+    /**
+     * Returns the measured time between the start of the two last calls to render().
+     *
+     * @return long with the time in nanoseconds
+     */
+    long getFrameTime();
 
-    public int getScreenHeight() {
-        return height;
-    }
+    /**
+     * Returns the measured time the last call to render() took to show the frame.
+     *
+     * @return long with the time in nanoseconds
+     */
+    long getPresentTime();
 }
@@ -0,0 +1,165 @@
+package engine.subsystems;
+
+import engine.SoundData;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sounds decoded once into SoundData in the format of the AudioMixer. Sounds with another sample rate or number of
+ * channels are converted, so the mixer never converts anything while playing. Each sound is decoded once and the
+ * same SoundData is shared by everything playing it. Sounds can be decoded from the worker threads of the Loader.
+ */
+public class SoundBank {
+    private final ConcurrentHashMap<String, SoundData> sounds;
+    private volatile boolean direct;    // Store new sounds off-heap in direct buffers
+
+    public SoundBank() {
+        sounds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get a decoded sound, decoding it if it hasn't been decoded before.
+     *
+     * @param path String
+     * @return SoundData, or null if the sound couldn't be read
+     */
+    public SoundData load(String path) {
+        SoundData data = sounds.get(path);
+        if (data == null) {
+            data = decode(path);
+            if (data != null) {
+                SoundData previous = sounds.putIfAbsent(path, data);    // Another thread may have decoded it
+                if (previous != null) {
+                    data = previous;
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Decode a sound resource to the format of the AudioMixer.
+     *
+     * @param path String
+     * @return SoundData, or null if the sound couldn't be read
+     */
+    private SoundData decode(String path) {
+        try {
+            InputStream audioSource = getClass().getResourceAsStream(path);
+            if (audioSource == null) {
+                throw new IOException("Sound not found: " + path);
+            }
+            AudioInputStream ais = AudioSystem.getAudioInputStream(new BufferedInputStream(audioSource));
+
+            // Decode to 16 bit samples with the sample rate and channels of the file, then convert those here
+            AudioFormat source = ais.getFormat();
+            AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+            AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, ais);
+            byte[] bytes = decoded.readAllBytes();
+            decoded.close();
+
+            short[] samples = normalize(bytes, pcm.getChannels(), pcm.getSampleRate());
+            ShortBuffer buffer;
+            if (direct) {
+                buffer = ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+                buffer.put(samples);
+            } else {
+                buffer = ShortBuffer.wrap(samples);
+            }
+            return new SoundData(path, buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (UnsupportedAudioFileException e) {
+            e.printStackTrace();
+        } catch (IllegalArgumentException e) {  // No conversion to 16 bit samples, for example compressed sounds
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Convert little endian 16 bit samples to interleaved stereo at the sample rate of the AudioMixer. Mono is
+     * played on both channels and only the first two channels are kept of sounds with more channels. Other sample
+     * rates are converted with linear interpolation.
+     *
+     * @param bytes byte[] with the samples
+     * @param channels int, channels in bytes
+     * @param sampleRate float, sample rate of bytes
+     * @return short[] with interleaved stereo samples
+     */
+    static short[] normalize(byte[] bytes, int channels, float sampleRate) {
+        int frames = bytes.length / (2 * channels);
+        float targetRate = AudioMixer.FORMAT.getSampleRate();
+        int targetFrames = sampleRate == targetRate ? frames : (int) ((long) frames * targetRate / sampleRate);
+        double step = frames / (double) Math.max(1, targetFrames);  // Source frames per target frame
+        short[] samples = new short[targetFrames * AudioMixer.CHANNELS];
+
+        for (int frame = 0; frame < targetFrames; frame++) {
+            double position = frame * step;
+            int first = (int) position;
+            int second = Math.min(first + 1, frames - 1);
+            double weight = position - first;
+            for (int c = 0; c < AudioMixer.CHANNELS; c++) {
+                int channel = Math.min(c, channels - 1);
+                int a = getSample(bytes, first * channels + channel);
+                int b = getSample(bytes, second * channels + channel);
+                samples[frame * AudioMixer.CHANNELS + c] = (short) Math.round(a + (b - a) * weight);
+            }
+        }
+        return samples;
+    }
+
+    private static int getSample(byte[] bytes, int i) {
+        return (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+    }
+
+    /**
+     * Check if a sound has been decoded.
+     *
+     * @param path String
+     * @return boolean
+     */
+    public boolean contains(String path) {
+        return sounds.containsKey(path);
+    }
+
+    /**
+     * Returns the memory used by the samples of all decoded sounds.
+     *
+     * @return long, bytes
+     */
+    public long getNumBytes() {
+        long bytes = 0;
+        for (SoundData data : sounds.values()) {
+            bytes += data.getNumBytes();
+        }
+        return bytes;
+    }
+
+    // Getter methods
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    // Setter methods
+
+    /**
+     * Set if sounds decoded after this should be stored off-heap.
+     *
+     * @param direct boolean
+     */
+    public void setDirect(boolean direct) {
+        this.direct = direct;
+    }
+}
@@ -0,0 +1,247 @@
+package engine.subsystems;
+
+import engine.SoundClip;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring buffer of sound commands from the game thread to the audio thread of the AudioMixer.
+ * Only one thread may add commands and only one thread may drain them. The commands are stored in preallocated
+ * arrays, so adding a command never allocates or waits.
+ *
+ * When the buffer is full the new command is dropped, or with OverflowPolicy.DROP_OLDEST the oldest command
+ * is dropped to make room. With coalescing, a sound that is played again in the same frame is only played once.
+ */
+public class SoundCommandQueue {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // Commands
+    public static final byte PLAY = 0;
+    public static final byte LOOP = 1;
+    public static final byte STOP = 2;
+    public static final byte GAIN = 3;
+    public static final byte STOP_ALL = 4;
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,    // The command that doesn't fit is dropped
+        DROP_OLDEST     // The oldest command that hasn't been handled is dropped
+    }
+
+    /**
+     * Handles the commands when the queue is drained.
+     */
+    public interface Handler {
+        void handle(byte command, SoundClip clip, float gain);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final byte[] commands;
+    private final SoundClip[] clips;
+    private final float[] gains;
+    private final AtomicLong head;  // Next command to handle, moved by the consumer and by the producer when dropping
+    private final AtomicLong tail;  // Next free place, only moved by the producer
+    private volatile OverflowPolicy overflowPolicy;
+    private volatile boolean coalescing;
+    private long frameStart;        // Tail when the frame started, commands after it were added in this frame
+    private long cleared;           // Commands before this have had their clip cleared, only used by the producer
+
+    // Statistics, written by the producer
+    private volatile long numOffered;
+    private volatile long numDropped;
+    private volatile long numCoalesced;
+    private volatile long totalLatency;     // Nanoseconds spent in offer()
+    private volatile long maxLatency;
+
+    /**
+     * Create a queue.
+     *
+     * @param capacity int, rounded up to a power of two
+     */
+    public SoundCommandQueue(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = this.capacity - 1;
+        commands = new byte[this.capacity];
+        clips = new SoundClip[this.capacity];
+        gains = new float[this.capacity];
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        coalescing = true;
+    }
+
+    /**
+     * Add a command. Called by the producer, never blocks.
+     *
+     * @param command byte, one of the command constants
+     * @param clip SoundClip, null for STOP_ALL
+     * @param gain float, used by PLAY, LOOP and GAIN
+     * @return true if the command was added or coalesced with a command in the same frame
+     */
+    public boolean offer(byte command, SoundClip clip, float gain) {
+        long start = System.nanoTime();
+        boolean added = add(command, clip, gain);
+        long latency = System.nanoTime() - start;
+
+        numOffered++;
+        totalLatency += latency;
+        if (latency > maxLatency) {
+            maxLatency = latency;
+        }
+        return added;
+    }
+
+    private boolean add(byte command, SoundClip clip, float gain) {
+        long t = tail.get();
+        if (coalescing && command == PLAY && isPlayedInFrame(clip, t)) {
+            numCoalesced++;
+            return true;
+        }
+
+        // Make room by dropping the oldest command, unless the consumer takes it first
+        long h;
+        while (t - (h = head.get()) >= capacity) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                numDropped++;
+                return false;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                numDropped++;
+            }
+        }
+
+        int i = (int) t & mask;
+        commands[i] = command;
+        clips[i] = clip;
+        gains[i] = gain;
+        tail.lazySet(t + 1);    // Publishes the command to the consumer
+        return true;
+    }
+
+    /**
+     * Check if a sound has been played since the frame started. Only the producer writes the commands, so the
+     * commands of the frame can be read even if the consumer has handled them.
+     *
+     * @param clip SoundClip
+     * @param t long, current tail
+     * @return boolean
+     */
+    private boolean isPlayedInFrame(SoundClip clip, long t) {
+        for (long j = Math.max(frameStart, t - capacity); j < t; j++) {
+            int i = (int) j & mask;
+            if (commands[i] == PLAY && clips[i] == clip) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start a new frame, used for coalescing. Called by the producer.
+     */
+    public void nextFrame() {
+        clearDone();
+        frameStart = tail.get();
+    }
+
+    /**
+     * Clear the clips of the commands that have been handled or dropped, so the queue doesn't keep clips that are
+     * no longer used. Done by the producer, which is the only thread writing the commands, so a command added in
+     * the same place can't be cleared. Called when a frame ends, after coalescing has read the commands of the frame.
+     */
+    private void clearDone() {
+        long h = head.get();
+        for (long j = Math.max(cleared, tail.get() - capacity); j < h; j++) {
+            clips[(int) j & mask] = null;
+        }
+        cleared = Math.max(cleared, h);
+    }
+
+    /**
+     * Handle all commands in the queue. Called by the consumer.
+     *
+     * @param handler Handler
+     * @return int, number of commands handled
+     */
+    public int drain(Handler handler) {
+        int handled = 0;
+        while (true) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return handled;
+            }
+            int i = (int) h & mask;
+            byte command = commands[i];
+            SoundClip clip = clips[i];
+            float gain = gains[i];
+            if (head.compareAndSet(h, h + 1)) {     // Fails if the producer dropped the command while it was read
+                handler.handle(command, clip, gain);
+                handled++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of commands waiting to be handled.
+     *
+     * @return int
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    // Getter methods
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    public long getNumOffered() {
+        return numOffered;
+    }
+
+    public long getNumDropped() {
+        return numDropped;
+    }
+
+    public long getNumCoalesced() {
+        return numCoalesced;
+    }
+
+    /**
+     * Returns the average time spent adding a command.
+     *
+     * @return double, nanoseconds
+     */
+    public double getAverageLatency() {
+        long offered = numOffered;
+        return offered == 0 ? 0 : totalLatency / (double) offered;
+    }
+
+    /**
+     * Returns the longest time spent adding a command.
+     *
+     * @return long, nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    // Setter methods
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+}
@@ -2,18 +2,32 @@ package engine.subsystems;
 
 import engine.SoundClip;
 
-import java.io.Serializable;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Singleton class used for storing and loading sounds. The instance of this class is located in the Loader class.
+ * Sounds can be added from the worker threads of the Loader. They are decoded once by a SoundBank, so playing a
+ * sound never decodes or allocates anything. All sounds are played by one AudioMixer, which is started when the
+ * first sound is added.
+ *
+ * Sounds are played and stopped by adding commands to a SoundCommandQueue that the audio thread drains, so the game
+ * thread never waits for the sound device. The commands must be sent from the game thread.
+ * Background music is streamed by a MusicPlayer and mixed with the sounds.
  */
 public class SoundManager {
     private static SoundManager soundManager = new SoundManager();
-    private HashMap<String, SoundClip> sounds;
+    private ConcurrentHashMap<String, SoundClip> sounds;
+    private SoundBank bank;
+    private SoundCommandQueue commands;
+    private MusicPlayer music;
+    private AudioMixer mixer;
 
     private SoundManager() {
-        sounds = new HashMap<>();
+        sounds = new ConcurrentHashMap<>();
+        bank = new SoundBank();
+        commands = new SoundCommandQueue(SoundCommandQueue.DEFAULT_CAPACITY);
+        music = new MusicPlayer();
+        mixer = new AudioMixer(commands, music);
     }
 
     /**
@@ -31,7 +45,8 @@ public class SoundManager {
      * @param path String
      */
     public void addSound(String path) {
-        sounds.put(path, new SoundClip(path));
+        mixer.start();
+        sounds.put(path, new SoundClip(bank.load(path), this));
     }
 
     /**
@@ -53,4 +68,111 @@ public class SoundManager {
     public SoundClip getSound(String path) {
         return sounds.get(path);
     }
+
+    /**
+     * Play a sound once.
+     *
+     * @param clip SoundClip
+     * @param gain float, 1 for the volume of the sound file
+     */
+    public void play(SoundClip clip, float gain) {
+        send(SoundCommandQueue.PLAY, clip, gain);
+    }
+
+    /**
+     * Play a sound repeatedly until it's stopped.
+     *
+     * @param clip SoundClip
+     * @param gain float, 1 for the volume of the sound file
+     */
+    public void loop(SoundClip clip, float gain) {
+        send(SoundCommandQueue.LOOP, clip, gain);
+    }
+
+    /**
+     * Stop all voices playing a sound.
+     *
+     * @param clip SoundClip
+     */
+    public void stop(SoundClip clip) {
+        send(SoundCommandQueue.STOP, clip, 0);
+    }
+
+    /**
+     * Change the gain of the voices playing a sound.
+     *
+     * @param clip SoundClip
+     * @param gain float
+     */
+    public void setGain(SoundClip clip, float gain) {
+        send(SoundCommandQueue.GAIN, clip, gain);
+    }
+
+    /**
+     * Stop all sounds.
+     */
+    public void stopAll() {
+        send(SoundCommandQueue.STOP_ALL, null, 0);
+    }
+
+    private void send(byte command, SoundClip clip, float gain) {
+        if (mixer.isRunning()) {    // Nothing drains the queue if the mixer isn't running
+            commands.offer(command, clip, gain);
+        }
+    }
+
+    /**
+     * Crossfade to a music track that is played until another track is played. Does nothing if the track is
+     * already playing.
+     *
+     * @param path String with the path of the track, or null to fade out the music
+     */
+    public void playMusic(String path) {
+        if (mixer.start()) {
+            music.play(path);
+        }
+    }
+
+    /**
+     * Start a new frame. Sounds played more than once in a frame are only played once. Called by the game loop.
+     */
+    public void nextFrame() {
+        commands.nextFrame();
+    }
+
+    /**
+     * Get the queue of sound commands. Can be used to change the overflow policy and read its statistics.
+     *
+     * @return SoundCommandQueue
+     */
+    public SoundCommandQueue getCommandQueue() {
+        return commands;
+    }
+
+    /**
+     * Get the bank of decoded sounds. Can be used to store the sounds off-heap and to see the memory they use.
+     *
+     * @return SoundBank
+     */
+    public SoundBank getBank() {
+        return bank;
+    }
+
+    /**
+     * Get the player streaming the music. Can be used to change the volume of the music.
+     *
+     * @return MusicPlayer
+     */
+    public MusicPlayer getMusicPlayer() {
+        return music;
+    }
+
+    /**
+     * Get the mixer playing the sounds. Can be used to change the polyphony limit and master gain.
+     *
+     * @return AudioMixer
+     */
+    public AudioMixer getMixer() {
+        return mixer;
+    }
 }
@@ -0,0 +1,159 @@
+package engine.subsystems;
+
+import engine.GameObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Broad phase that divides the world into a uniform grid of square cells. Every object is added to the cells its
+ * bounding rectangle covers, and only objects in the same cell are compared.
+ * Each entry is packed in a long as cell column, cell row and object index and the entries are sorted, so objects in
+ * the same cell end up next to each other without any per cell lists.
+ *
+ * @param <T> type of the game objects
+ */
+public class SpatialHash<T extends GameObject> implements BroadPhase<T> {
+    private static final int CELL_BITS = 21;    // Bits for cell column and row, 2 million cells in each direction
+    private static final int INDEX_BITS = 22;   // Bits for object index, 4 million objects
+    private static final int CELL_BIAS = 1 << (CELL_BITS - 1);  // Makes cells with negative coordinates positive
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final int cellSize;
+    private final ArrayList<T> objects;
+    private long[] entries;
+    private int numEntries;
+
+    public SpatialHash(int cellSize) {
+        this.cellSize = cellSize;
+        objects = new ArrayList<>();
+        entries = new long[64];
+    }
+
+    @Override
+    public void update(List<T> objects) {
+        this.objects.clear();
+        for (int i = 0; i < objects.size(); i++) {  // addAll would copy the list into a new array
+            this.objects.add(objects.get(i));
+        }
+        numEntries = 0;
+
+        for (int i = 0; i < objects.size(); i++) {
+            T object = objects.get(i);
+            int firstCol = cell(object.getX());
+            int lastCol = cell(object.getX() + object.getWidth());
+            int firstRow = cell(object.getY());
+            int lastRow = cell(object.getY() + object.getHeight());
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    if (numEntries == entries.length) {
+                        entries = Arrays.copyOf(entries, entries.length * 2);
+                    }
+                    entries[numEntries++] = key(col, row) | i;
+                }
+            }
+        }
+
+        Arrays.sort(entries, 0, numEntries);
+    }
+
+    @Override
+    public void forEachPair(BiConsumer<T, T> handler) {
+        int start = 0;
+        while (start < numEntries) {
+            long cellKey = entries[start] & ~INDEX_MASK;
+            int end = start + 1;
+            while (end < numEntries && (entries[end] & ~INDEX_MASK) == cellKey) {
+                end++;
+            }
+
+            // Compare all objects in the cell
+            for (int i = start; i < end - 1; i++) {
+                T a = objects.get((int) (entries[i] & INDEX_MASK));
+                for (int j = i + 1; j < end; j++) {
+                    T b = objects.get((int) (entries[j] & INDEX_MASK));
+                    if (overlaps(a, b) && isFirstSharedCell(a, b, cellKey)) {
+                        handler.accept(a, b);
+                    }
+                }
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    public void forEachNear(GameObject object, Consumer<T> handler) {
+        int firstCol = cell(object.getX());
+        int lastCol = cell(object.getX() + object.getWidth());
+        int firstRow = cell(object.getY());
+        int lastRow = cell(object.getY() + object.getHeight());
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                long cellKey = key(col, row);
+                int i = Arrays.binarySearch(entries, 0, numEntries, cellKey);
+                if (i < 0) {
+                    i = -i - 1;     // Index of the first entry in the cell
+                }
+                for (; i < numEntries && (entries[i] & ~INDEX_MASK) == cellKey; i++) {
+                    T other = objects.get((int) (entries[i] & INDEX_MASK));
+                    if (other != object && overlaps(object, other) && isFirstSharedCell(object, other, cellKey)) {
+                        handler.accept(other);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cell column or row of a position.
+     *
+     * @param position double
+     * @return int
+     */
+    private int cell(double position) {
+        return (int) Math.floor(position / cellSize);
+    }
+
+    /**
+     * Returns the part of an entry identifying a cell.
+     *
+     * @param col int
+     * @param row int
+     * @return long
+     */
+    private long key(int col, int row) {
+        return (((col + CELL_BIAS) & CELL_MASK) << (CELL_BITS + INDEX_BITS))
+                | (((row + CELL_BIAS) & CELL_MASK) << INDEX_BITS);
+    }
+
+    /**
+     * Two overlapping objects can share several cells. To report them once, they are only reported in the cell
+     * containing the upper left corner of the area where they overlap.
+     *
+     * @param a GameObject
+     * @param b GameObject
+     * @param cellKey long
+     * @return true if cellKey is the cell where a and b should be reported
+     */
+    private boolean isFirstSharedCell(GameObject a, GameObject b, long cellKey) {
+        return key(cell(Math.max(a.getX(), b.getX())), cell(Math.max(a.getY(), b.getY()))) == cellKey;
+    }
+
+    /**
+     * Check if the bounding rectangles of two objects overlap.
+     *
+     * @param a GameObject
+     * @param b GameObject
+     * @return boolean
+     */
+    private static boolean overlaps(GameObject a, GameObject b) {
+        return a.getX() <= b.getX() + b.getWidth() && b.getX() <= a.getX() + a.getWidth()
+                && a.getY() <= b.getY() + b.getHeight() && b.getY() <= a.getY() + a.getHeight();
+    }
+}
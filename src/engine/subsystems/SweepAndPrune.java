@@ -0,0 +1,209 @@
+package engine.subsystems;
+
+import engine.GameObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Broad phase that sorts the objects by the left edge of their bounding rectangles and sweeps along the x-axis,
+ * only comparing objects whose horizontal intervals overlap. The sorted order is kept between updates and sorted
+ * again with insertion sort, which is close to linear since objects only move a little between updates.
+ * Works best in wide and shallow levels where few objects share the same x-interval.
+ *
+ * @param <T> type of the game objects
+ */
+public class SweepAndPrune<T extends GameObject> implements BroadPhase<T> {
+    private GameObject[] objects;   // Objects from the last update, in the order of the list
+    private int numObjects;
+    private int[] order;            // Indices into objects sorted by minX
+    private int[] newOrder;         // Used when objects are added or removed, swapped with order
+    private int[] newIndices;       // Index in the new list of each object, -1 if it was removed
+    private boolean[] placed;       // Objects in the new list that have a place in newOrder
+    private double[] minX, maxX, minY, maxY;
+    private double maxWidth;        // Widest object, used to limit the search in forEachNear
+
+    public SweepAndPrune() {
+        objects = new GameObject[0];
+        order = new int[0];
+        newOrder = new int[0];
+        newIndices = new int[0];
+        placed = new boolean[0];
+        minX = new double[0];
+        maxX = new double[0];
+        minY = new double[0];
+        maxY = new double[0];
+    }
+
+    @Override
+    public void update(List<T> objects) {
+        if (!isSameObjects(objects)) {
+            rebuildOrder(objects);
+        }
+
+        maxWidth = 0;
+        for (int i = 0; i < numObjects; i++) {
+            GameObject object = this.objects[i];
+            minX[i] = object.getX();
+            maxX[i] = object.getX() + object.getWidth();
+            minY[i] = object.getY();
+            maxY[i] = object.getY() + object.getHeight();
+            maxWidth = Math.max(maxWidth, object.getWidth());
+        }
+
+        insertionSort();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachPair(BiConsumer<T, T> handler) {
+        for (int i = 0; i < numObjects; i++) {
+            int a = order[i];
+            for (int j = i + 1; j < numObjects && minX[order[j]] <= maxX[a]; j++) {
+                int b = order[j];
+                if (minY[a] <= maxY[b] && minY[b] <= maxY[a]) {
+                    handler.accept((T) objects[a], (T) objects[b]);
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachNear(GameObject object, Consumer<T> handler) {
+        double left = object.getX();
+        double right = object.getX() + object.getWidth();
+        double top = object.getY();
+        double bottom = object.getY() + object.getHeight();
+
+        // No object starting further left than this can reach the object
+        for (int i = firstWithMinX(left - maxWidth); i < numObjects && minX[order[i]] <= right; i++) {
+            int other = order[i];
+            if (objects[other] != object && maxX[other] >= left && minY[other] <= bottom && maxY[other] >= top) {
+                handler.accept((T) objects[other]);
+            }
+        }
+    }
+
+    /**
+     * Check if the list contains the same objects in the same order as in the last update.
+     *
+     * @param objects List
+     * @return boolean
+     */
+    private boolean isSameObjects(List<T> objects) {
+        if (objects.size() != numObjects) {
+            return false;
+        }
+        for (int i = 0; i < numObjects; i++) {
+            if (objects.get(i) != this.objects[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Objects have been added or removed. Keep the sorted order of the objects that are left and add the new ones
+     * last, so insertion sort still has little to do. Reuses the arrays, so removing objects doesn't allocate.
+     *
+     * @param objects List
+     */
+    private void rebuildOrder(List<T> objects) {
+        int size = objects.size();
+        if (this.objects.length < size) {
+            grow(Math.max(size, this.objects.length * 2));
+        }
+
+        // Objects that are left keep their order in the list, so they are found by walking both lists
+        int next = 0;
+        for (int i = 0; i < numObjects; i++) {
+            if (next < size && objects.get(next) == this.objects[i]) {
+                newIndices[i] = next++;
+            } else {
+                newIndices[i] = -1;     // Removed, or moved in the list and added again below
+            }
+        }
+
+        Arrays.fill(placed, 0, size, false);
+        int count = 0;
+        for (int i = 0; i < numObjects; i++) {
+            int index = newIndices[order[i]];
+            if (index >= 0) {
+                newOrder[count++] = index;
+                placed[index] = true;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (!placed[i]) {
+                newOrder[count++] = i;
+            }
+        }
+
+        int[] oldOrder = order;
+        order = newOrder;
+        newOrder = oldOrder;
+        for (int i = 0; i < size; i++) {
+            this.objects[i] = objects.get(i);
+        }
+        if (size < numObjects) {
+            Arrays.fill(this.objects, size, numObjects, null);  // Don't keep removed objects alive
+        }
+        numObjects = size;
+    }
+
+    /**
+     * Make room for more objects, keeping the objects and the order of the last update.
+     *
+     * @param capacity int
+     */
+    private void grow(int capacity) {
+        objects = Arrays.copyOf(objects, capacity);
+        order = Arrays.copyOf(order, capacity);
+        newOrder = new int[capacity];
+        newIndices = new int[capacity];
+        placed = new boolean[capacity];
+        minX = new double[capacity];
+        maxX = new double[capacity];
+        minY = new double[capacity];
+        maxY = new double[capacity];
+    }
+
+    /**
+     * Sort order by minX with insertion sort.
+     */
+    private void insertionSort() {
+        for (int i = 1; i < numObjects; i++) {
+            int index = order[i];
+            double key = minX[index];
+            int j = i - 1;
+            while (j >= 0 && minX[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * Binary search for the first position in order with minX greater than or equal to x.
+     *
+     * @param x double
+     * @return int
+     */
+    private int firstWithMinX(double x) {
+        int low = 0;
+        int high = numObjects;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (minX[order[middle]] < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,159 @@
+package engine.subsystems;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A set of images packed into one large image. Each image in the set is a region of the atlas.
+ * Images are packed in rows (shelves), sorted from the tallest to the shortest.
+ */
+public class TextureAtlas {
+    private static final int PADDING = 1;   // Space between regions so scaling doesn't pick up pixels from neighbours
+
+    private final BufferedImage image;
+    private final Rectangle[] regions;
+
+    private TextureAtlas(BufferedImage image, Rectangle[] regions) {
+        this.image = image;
+        this.regions = regions;
+    }
+
+    /**
+     * Pack images into a new atlas. Region i of the atlas contains images[i].
+     *
+     * @param images BufferedImage[]
+     * @return TextureAtlas
+     */
+    public static TextureAtlas pack(BufferedImage[] images) {
+        Integer[] order = new Integer[images.length];
+        int area = 0;
+        int maxWidth = 0;
+        for (int i = 0; i < images.length; i++) {
+            order[i] = i;
+            area += (images[i].getWidth() + PADDING) * (images[i].getHeight() + PADDING);
+            maxWidth = Math.max(maxWidth, images[i].getWidth() + PADDING);
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> images[i].getHeight()).reversed());
+
+        // Width of the atlas is the smallest power of two that makes it roughly square
+        int width = Integer.highestOneBit(Math.max(maxWidth, (int) Math.ceil(Math.sqrt(area))) - 1) << 1;
+
+        // Place images from left to right in shelves, start a new shelf when the current one is full
+        Rectangle[] regions = new Rectangle[images.length];
+        int x = 0, y = 0, shelfHeight = 0;
+        for (int i : order) {
+            int w = images[i].getWidth();
+            int h = images[i].getHeight();
+            if (x + w > width) {
+                x = 0;
+                y += shelfHeight + PADDING;
+                shelfHeight = 0;
+            }
+            regions[i] = new Rectangle(x, y, w, h);
+            x += w + PADDING;
+            shelfHeight = Math.max(shelfHeight, h);
+        }
+
+        BufferedImage atlas = new BufferedImage(width, y + shelfHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        for (int i = 0; i < images.length; i++) {
+            g.drawImage(images[i], regions[i].x, regions[i].y, null);
+        }
+        g.dispose();
+
+        return new TextureAtlas(atlas, regions);
+    }
+
+    /**
+     * Returns the name the atlas of a directory is saved with, the path without the outer slashes and with the other
+     * slashes and spaces replaced by _. For example "/player/jump up/" is saved as player_jump_up.
+     *
+     * @param directory String with the path of the images, ending with /
+     * @return String
+     */
+    public static String getName(String directory) {
+        return directory.replaceAll("^/|/$", "").replaceAll("[/ ]", "_");
+    }
+
+    /**
+     * Load an atlas saved with save(). The files can be resources or files on disk.
+     *
+     * @param imageUrl URL of the atlas image
+     * @param indexUrl URL of the file with one region per line written as x,y,width,height
+     * @return TextureAtlas or null if the files can't be read
+     */
+    public static TextureAtlas load(URL imageUrl, URL indexUrl) {
+        if (imageUrl == null || indexUrl == null) {
+            return null;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexUrl.openStream()))) {
+            ArrayList<Rectangle> regions = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                regions.add(new Rectangle(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+                        Integer.parseInt(values[2]), Integer.parseInt(values[3])));
+            }
+            BufferedImage image = ImageIO.read(imageUrl);
+            if (image == null) {
+                return null;
+            }
+            return new TextureAtlas(image, regions.toArray(new Rectangle[0]));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Save the atlas image as png and the regions in an index file. Creates the directory of the files if needed.
+     *
+     * @param imageFile File
+     * @param indexFile File
+     * @throws IOException if the files can't be written
+     */
+    public void save(File imageFile, File indexFile) throws IOException {
+        File directory = imageFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        if (!ImageIO.write(image, "png", imageFile)) {
+            throw new IOException("No png writer");
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(indexFile))) {
+            for (Rectangle region : regions) {
+                writer.write(region.x + "," + region.y + "," + region.width + "," + region.height);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the region with index i as an image sharing the pixels of the atlas.
+     *
+     * @param atlasImage BufferedImage, the atlas image or a converted copy of it
+     * @param i int
+     * @return BufferedImage
+     */
+    public BufferedImage getRegion(BufferedImage atlasImage, int i) {
+        Rectangle region = regions[i];
+        return atlasImage.getSubimage(region.x, region.y, region.width, region.height);
+    }
+
+    // Getter methods
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getNumRegions() {
+        return regions.length;
+    }
+}
@@ -0,0 +1,108 @@
+package engine.subsystems;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * This class creates a JFrame and draws images on it.
+ * The Graphics2D object in this class should be used for all drawing.
+ */
+public class WindowRenderer extends JFrame implements Renderer {
+    private BufferedImage image;
+    private Graphics2D graphics2D;
+    private int width, height;
+    private boolean fullscreen;
+
+    // Measured times in nanoseconds
+    private long lastRenderTime;
+    private long frameTime;     // Time between the two last frames
+    private long presentTime;   // Time it took to show the last frame
+
+    /**
+     * Constructor initializing JFrame with a fixed width and height.
+     */
+    public WindowRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        fullscreen = false;
+        setPreferredSize(new Dimension(width, height));
+        setVisible(true);
+        pack();
+        init();
+    }
+
+    /**
+     * Constructor initializing JFrame in fullscreen.
+     */
+    public WindowRenderer() {
+        GraphicsEnvironment environment = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        GraphicsDevice device = environment.getDefaultScreenDevice();
+        setUndecorated(true);
+        device.setFullScreenWindow(this);
+        this.width = device.getFullScreenWindow().getWidth();
+        this.height = device.getFullScreenWindow().getHeight();
+        fullscreen = true;
+        init();
+    }
+
+    /**
+     * Variables and attributes used by both fullscreen and windowed constructors.
+     */
+    private void init() {
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics2D = (Graphics2D) image.getGraphics();
+        setResizable(false);
+        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        lastRenderTime = System.nanoTime();
+    }
+
+    /**
+     * Renders the screen with BufferedImage image.
+     */
+    @Override
+    public boolean render() {
+        long startTime = System.nanoTime();
+
+        Graphics g = getGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+
+        presentTime = System.nanoTime() - startTime;
+        frameTime = startTime - lastRenderTime;
+        lastRenderTime = startTime;
+        return true;
+    }
+
+    // Getter methods
+
+    @Override
+    public Graphics2D getGraphics2D() {
+        return graphics2D;
+    }
+
+    @Override
+    public boolean isFullscreen() {
+        return fullscreen;
+    }
+
+    @Override
+    public int getScreenWidth() {
+        return width;
+    }
+
+    @Override
+    public int getScreenHeight() {
+        return height;
+    }
+
+    @Override
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    @Override
+    public long getPresentTime() {
+        return presentTime;
+    }
+}
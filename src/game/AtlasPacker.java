@@ -0,0 +1,54 @@
+package game;
+
+import engine.subsystems.TextureAtlas;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Packs the atlases of the game, see Game.createAssetManifest(), and saves them in the atlas directory of the
+ * resources, where Loader.loadAtlas() reads them. Run again after changing or adding an image of an atlas, Loader
+ * packs an atlas on the first run while it's older than its images.
+ *
+ * Usage: AtlasPacker [directory], the default directory is resources.
+ */
+public class AtlasPacker {
+
+    public static void main(String[] args) {
+        File resources = new File(args.length > 0 ? args[0] : "resources");
+        if (!resources.isDirectory()) {
+            System.err.println("No such directory: " + resources);
+            return;
+        }
+
+        File atlasDirectory = new File(resources, "atlas");
+        for (String directory : Game.createAssetManifest().getAtlases()) {
+            String name = TextureAtlas.getName(directory);
+            File imageFile = new File(atlasDirectory, name + ".png");
+            File indexFile = new File(atlasDirectory, name + ".txt");
+            try {
+                ArrayList<BufferedImage> sources = new ArrayList<>();
+                File source;
+                while ((source = new File(resources, directory + sources.size() + ".png")).exists()) {
+                    BufferedImage image = ImageIO.read(source);
+                    if (image == null) {
+                        throw new IOException("Unknown image format: " + source);
+                    }
+                    sources.add(image);
+                }
+                if (sources.isEmpty()) {
+                    System.err.println("No images in " + directory);
+                    continue;
+                }
+                TextureAtlas.pack(sources.toArray(new BufferedImage[0])).save(imageFile, indexFile);
+                System.out.println(directory + " -> " + imageFile);
+            } catch (IOException e) {
+                System.err.println("Could not pack " + directory);
+                e.printStackTrace();
+            }
+        }
+    }
+}
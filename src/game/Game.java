@@ -1,8 +1,10 @@
 package game;
 
+import engine.FramePacer;
 import engine.GameEngine;
-import engine.SoundClip;
+import engine.subsystems.AssetManifest;
 import engine.subsystems.Key;
+import engine.subsystems.Renderer;
 import game.gamestates.*;
 
 import java.awt.*;
@@ -36,24 +38,58 @@ public class Game extends GameEngine {
         super();
     }
 
+    // Constructor for any renderer, for example a HeadlessRenderer
+    public Game(Renderer renderer) {
+        super(renderer, FramePacer.Mode.HYBRID);
+    }
+
     @Override
     protected void create() {
 
-        // Add GameStates and set MainMenu to initial state
+        // Load images and sounds on worker threads while the loading screen is shown
+        loader.preload(createAssetManifest());
+
+        // Add GameStates and set LoadingScreen to initial state, it changes to MainMenu when everything is loaded
+        loader.addGameState("loading", new LoadingScreen());
         loader.addGameState("main", new MainMenu());
         loader.addGameState("settings", new SettingsMenu());
         loader.addGameState("level1", new Level1());
         loader.addGameState("level2", new Level2());
         loader.addGameState("level3", new Level3());
         loader.addGameState("highScore", new HighScore());
-        loader.setGameState("main");
+        loader.setGameState("loading");
 
         physicsManager.setGravity(0.2);
-        SoundClip music = Game.loader.loadSound("/sound/music.wav");    // Background music used in all GameStates
-        music.loop();
+        Game.loader.playMusic("/sound/music.wav");  // Background music used in GameStates without their own
         addKeys();
     }
 
+    /**
+     * Returns the images, atlases and sounds used by the game. The atlases are also packed by AtlasPacker.
+     *
+     * @return AssetManifest
+     */
+    public static AssetManifest createAssetManifest() {
+        return new AssetManifest()
+                .addAtlas("/coin/")
+                .addAtlas("/player/idle/")
+                .addAtlas("/player/run/")
+                .addAtlas("/player/dizzy/")
+                .addAtlas("/player/jump up/")
+                .addAtlas("/player/jump fall/")
+                .addAtlas("/tiles/grass/")
+                .addAtlas("/tiles/winter/")
+                .addAtlas("/tiles/desert/")
+                .addImage("/backgrounds/trees.png")
+                .addImage("/backgrounds/winter.png")
+                .addImage("/backgrounds/desert.png")
+                .addImage("/ball/ball.png")
+                .addImage("/ball/explosion.png")
+                .addSound("/sound/coin.wav")
+                .addSound("/sound/bomb.wav")
+                .addSound("/sound/jump.wav");
+    }
+
     /**
      * Add default keys and mouse buttons used in the game.
      */
@@ -79,11 +115,11 @@ public class Game extends GameEngine {
     }
 
     @Override
-    protected void draw() {
+    protected void draw(double alpha) {
         renderer.getGraphics2D().setRenderingHint(
                 RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON
         );
-        Game.loader.getCurrentGameState().draw();
+        Game.loader.getCurrentGameState().draw(alpha);
     }
 
     @Override
@@ -1,9 +1,22 @@
 package game;
 
+import engine.subsystems.CanvasRenderer;
+
 public class Main {
 
+    /**
+     * Start the game in fullscreen. With the argument --canvas the game is drawn with a CanvasRenderer, which
+     * flips the buffers of a BufferStrategy, instead of the default WindowRenderer.
+     *
+     * @param args String[]
+     */
     public static void main(String[] args) {
-        Game game = new Game();
+        Game game;
+        if (args.length > 0 && args[0].equals("--canvas")) {
+            game = new Game(new CanvasRenderer(2, true));   // Double buffered, synced with the screen
+        } else {
+            game = new Game();
+        }
         game.start();
     }
 }
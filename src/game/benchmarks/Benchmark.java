@@ -0,0 +1,71 @@
+package game.benchmarks;
+
+import engine.subsystems.HeadlessRenderer;
+import game.Game;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Base class of the benchmarks. Starts the game without a window, so images, sounds and levels are loaded like in
+ * the game, and calls runBenchmark() on the game loop thread. The process exits when runBenchmark() returns, with status 1 if a
+ * benchmark checks something and it failed.
+ *
+ * The benchmarks are run with the resources on the class path, for example
+ * java -cp out:resources game.benchmarks.BroadPhaseBenchmark
+ */
+public abstract class Benchmark extends Game {
+    protected static final int ROUNDS = 3;     // Times each measurement is repeated, the last round is reported
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+
+    protected Benchmark() {
+        super(new HeadlessRenderer(1920, 1080));
+    }
+
+    @Override
+    protected void create() {
+        super.create();
+        boolean passed = runBenchmark();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Run the benchmark and print the results.
+     *
+     * @return true if the benchmark passed or doesn't check anything
+     */
+    protected abstract boolean runBenchmark();
+
+    /**
+     * Measure the average time of a task. The task is run ROUNDS times repetitions times, the earlier rounds let
+     * the JIT compiler optimize it.
+     *
+     * @param repetitions int
+     * @param task Runnable
+     * @return double with the time of one repetition in nanoseconds
+     */
+    protected static double measure(int repetitions, Runnable task) {
+        long time = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < repetitions; i++) {
+                task.run();
+            }
+            time = System.nanoTime() - start;
+        }
+        return time / (double) repetitions;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     *
+     * @return long, or -1 if the JVM can't measure it
+     */
+    protected static long getAllocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
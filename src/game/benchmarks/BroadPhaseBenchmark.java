@@ -0,0 +1,207 @@
+package game.benchmarks;
+
+import engine.GameObject;
+import engine.subsystems.BroadPhase;
+import engine.subsystems.PhysicsManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+/**
+ * Compares the broad phases with checking all pairs, for 10 to 10,000 ball sized objects. The objects are placed
+ * at random in levels as high as the bundled levels, 9 tiles like Level1 and Level2 and 12 tiles like Level3,
+ * made wider as the number of objects grows so there are about as many objects per tile. Every update the objects
+ * move a little, the broad phase is updated and all pairs are found. The pairs are also checked against all pairs
+ * for up to 1000 objects.
+ *
+ * Usage: BroadPhaseBenchmark
+ */
+public class BroadPhaseBenchmark extends Benchmark {
+    private static final int TILE_SIZE = 128;
+    private static final int SIZE = 70;             // Width and height of the objects, like a Ball
+    private static final int[] LEVEL_ROWS = {9, 12};
+    private static final int[] NUM_OBJECTS = {10, 100, 1000, 10000};
+    private static final int COLS_PER_OBJECT = 1;   // Level width in tiles per object, about one in 10 tiles
+    private static final int MIN_COLS = 25;         // Width of the smallest bundled levels
+    private static final int MAX_CHECKED = 1000;    // Pairs are compared with all pairs up to this many objects
+
+    private static int numPairs;    // Used so the work can't be removed as dead code
+
+    /**
+     * Object with a position and a size, the only things the broad phases use.
+     */
+    private static class Box extends GameObject {
+
+        private Box(double x, double y) {
+            super(null, x, y);
+        }
+
+        @Override
+        protected void create() {
+            width = SIZE;
+            height = SIZE;
+        }
+
+        @Override
+        public void update(double delta) {
+            // Moved by the benchmark
+        }
+
+        @Override
+        public void draw(double alpha) {
+            // Not drawn
+        }
+    }
+
+    public static void main(String[] args) {
+        new BroadPhaseBenchmark().start();
+    }
+
+    @Override
+    protected boolean runBenchmark() {
+        boolean passed = true;
+        for (int rows : LEVEL_ROWS) {
+            System.out.println("Level " + rows + " tiles high, time per update");
+            System.out.printf("%8s %16s %16s %16s%n", "objects", "SPATIAL_HASH", "SWEEP_AND_PRUNE", "all pairs");
+            for (int numObjects : NUM_OBJECTS) {
+                ArrayList<Box> boxes = createBoxes(numObjects, rows);
+                double spatialHash = measureBroadPhase(PhysicsManager.BroadPhaseType.SPATIAL_HASH, boxes);
+                double sweepAndPrune = measureBroadPhase(PhysicsManager.BroadPhaseType.SWEEP_AND_PRUNE, boxes);
+                double allPairs = measureAllPairs(boxes);
+                System.out.printf("%8d %13.1f us %13.1f us %13.1f us%n",
+                        numObjects, spatialHash / 1000, sweepAndPrune / 1000, allPairs / 1000);
+                passed &= checkPairs(PhysicsManager.BroadPhaseType.SPATIAL_HASH, boxes)
+                        && checkPairs(PhysicsManager.BroadPhaseType.SWEEP_AND_PRUNE, boxes);
+            }
+            System.out.println();
+        }
+        System.out.println(passed ? "Pairs match all pairs" : "FAILED, pairs don't match all pairs");
+        return passed;
+    }
+
+    /**
+     * Place objects at random in a level.
+     *
+     * @param numObjects int
+     * @param rows int, height of the level in tiles
+     * @return ArrayList with the objects
+     */
+    private static ArrayList<Box> createBoxes(int numObjects, int rows) {
+        Random random = new Random(numObjects);
+        double width = Math.max(MIN_COLS, numObjects * COLS_PER_OBJECT) * TILE_SIZE;
+        double height = rows * TILE_SIZE;
+        ArrayList<Box> boxes = new ArrayList<>(numObjects);
+        for (int i = 0; i < numObjects; i++) {
+            boxes.add(new Box(random.nextDouble() * (width - SIZE), random.nextDouble() * (height - SIZE)));
+        }
+        return boxes;
+    }
+
+    /**
+     * Measure updating a broad phase and finding all pairs.
+     *
+     * @param type PhysicsManager.BroadPhaseType
+     * @param boxes ArrayList
+     * @return double with the time of one update in nanoseconds
+     */
+    private static double measureBroadPhase(PhysicsManager.BroadPhaseType type, ArrayList<Box> boxes) {
+        BroadPhase<Box> broadPhase = PhysicsManager.getInstance().createBroadPhase(type, TILE_SIZE);
+        int[] step = {0};
+        return measure(getRepetitions(boxes.size(), 20000000), () -> {
+            move(boxes, step[0]++);
+            broadPhase.update(boxes);
+            broadPhase.forEachPair((a, b) -> numPairs++);
+        });
+    }
+
+    /**
+     * Measure checking all pairs of objects with circleCircleCollision, like LevelState did before the broad
+     * phases.
+     *
+     * @param boxes ArrayList
+     * @return double with the time of one update in nanoseconds
+     */
+    private static double measureAllPairs(ArrayList<Box> boxes) {
+        int[] step = {0};
+        return measure(getRepetitions((long) boxes.size() * boxes.size() / 50, 20000000), () -> {
+            move(boxes, step[0]++);
+            for (int i = 0; i < boxes.size() - 1; i++) {
+                Box a = boxes.get(i);
+                for (int j = i + 1; j < boxes.size(); j++) {
+                    if (PhysicsManager.circleCircleCollision(a, boxes.get(j))) {
+                        numPairs++;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of repetitions for a measurement, so every measurement takes about the same time.
+     *
+     * @param work long, the work of one repetition
+     * @param totalWork long, the work of all repetitions
+     * @return int
+     */
+    private static int getRepetitions(long work, long totalWork) {
+        return (int) Math.max(5, Math.min(20000, totalWork / Math.max(1, work * 20)));
+    }
+
+    /**
+     * Move every object one pixel to the right or left, changing direction every update.
+     *
+     * @param boxes ArrayList
+     * @param step int
+     */
+    private static void move(ArrayList<Box> boxes, int step) {
+        double dx = step % 2 == 0 ? 1 : -1;
+        for (int i = 0; i < boxes.size(); i++) {
+            boxes.get(i).getPosition().x += dx;
+        }
+    }
+
+    /**
+     * Check that a broad phase finds every overlapping pair once and nothing else.
+     *
+     * @param type PhysicsManager.BroadPhaseType
+     * @param boxes ArrayList
+     * @return true if the pairs are the same as checking all pairs
+     */
+    private static boolean checkPairs(PhysicsManager.BroadPhaseType type, ArrayList<Box> boxes) {
+        if (boxes.size() > MAX_CHECKED) {
+            return true;
+        }
+        IdentityHashMap<Box, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            indices.put(boxes.get(i), i);
+        }
+
+        BroadPhase<Box> broadPhase = PhysicsManager.getInstance().createBroadPhase(type, TILE_SIZE);
+        broadPhase.update(boxes);
+        HashSet<Long> found = new HashSet<>();
+        boolean[] duplicate = {false};
+        broadPhase.forEachPair((a, b) -> {
+            int i = indices.get(a);
+            int j = indices.get(b);
+            duplicate[0] |= !found.add((long) Math.min(i, j) * boxes.size() + Math.max(i, j));
+        });
+
+        HashSet<Long> expected = new HashSet<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                if (PhysicsManager.rectangleRectangleCollision(boxes.get(i).getX(), boxes.get(i).getY(), SIZE, SIZE,
+                        boxes.get(j).getX(), boxes.get(j).getY(), SIZE, SIZE)) {
+                    expected.add((long) i * boxes.size() + j);
+                }
+            }
+        }
+        if (duplicate[0] || !found.equals(expected)) {
+            System.out.println(type + " found " + found.size() + " pairs, expected " + expected.size()
+                    + (duplicate[0] ? ", some more than once" : ""));
+            return false;
+        }
+        return true;
+    }
+}
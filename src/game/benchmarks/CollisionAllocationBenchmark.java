@@ -0,0 +1,112 @@
+package game.benchmarks;
+
+import engine.ActivityRegion;
+import engine.subsystems.PhysicsManager;
+import game.gamestates.LevelState;
+
+import java.util.Random;
+
+/**
+ * Checks that collision checking doesn't allocate once the game is running. Measures the bytes allocated by the
+ * collision methods in PhysicsManager and by LevelState.checkCollisions(), which updates the broad phases and checks
+ * the collisions between player, coins and balls, while the levels are played. Fails if anything was allocated
+ * after the warm up.
+ *
+ * Usage: CollisionAllocationBenchmark
+ */
+public class CollisionAllocationBenchmark extends Benchmark {
+    private static final int CHECKS = 10000000;
+    private static final int WARM_UP_UPDATES = 20000;
+    private static final int UPDATES = 10000;
+    private static final int SEGMENT = 100;     // Updates between the measured collision checks
+    private static final String[] LEVELS = {"level1", "level2", "level3"};
+
+    private final double[] values;  // Random positions and sizes for the collision methods
+    private int numCollisions;      // Used so the checks can't be removed as dead code
+
+    public CollisionAllocationBenchmark() {
+        super();
+        values = new double[4096];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 500;
+        }
+    }
+
+    public static void main(String[] args) {
+        new CollisionAllocationBenchmark().start();
+    }
+
+    @Override
+    protected boolean runBenchmark() {
+        if (getAllocatedBytes() < 0) {
+            System.out.println("This JVM can't measure allocated bytes");
+            return false;
+        }
+        boolean passed = true;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = getAllocatedBytes();
+            long start = System.nanoTime();
+            checkCollisions();
+            double time = (System.nanoTime() - start) / (3.0 * CHECKS);
+            long allocated = getAllocatedBytes() - before;
+            System.out.printf("PhysicsManager round %d: %d bytes allocated, %.1f ns per check%n",
+                    round, allocated, time);
+            passed &= round == 0 || allocated == 0;   // The first round runs before the JIT compiler
+        }
+
+        for (String level : LEVELS) {
+            lives = Integer.MAX_VALUE;      // The player stands still, the level mustn't end when balls hit it
+            loader.setGameState(level);
+            LevelState state = (LevelState) loader.getCurrentGameState();
+            for (int i = 0; i < WARM_UP_UPDATES; i++) {
+                state.update(1);
+            }
+
+            // The objects move between the measurements, an even number of checks leaves the balls unchanged
+            for (int round = 0; round < ROUNDS; round++) {
+                long allocated = 0;
+                for (int segment = 0; segment < UPDATES / SEGMENT; segment++) {
+                    for (int i = 0; i < SEGMENT; i++) {
+                        state.update(1);
+                    }
+                    long before = getAllocatedBytes();
+                    for (int i = 0; i < SEGMENT; i++) {
+                        state.checkCollisions();
+                    }
+                    allocated += getAllocatedBytes() - before;
+                }
+                ActivityRegion region = state.getActivityRegion();
+                System.out.printf("%s round %d: %d bytes allocated in %d collision checks, %d coins and balls%n",
+                        level, round, allocated, UPDATES, region.getNumActive() + region.getNumDormant());
+                passed &= round == 0 || allocated == 0;     // The first round may compile and link new code paths
+            }
+        }
+
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * Check CHECKS times with each of the primitive collision methods.
+     */
+    private void checkCollisions() {
+        int mask = values.length - 1;
+        for (int n = 0; n < CHECKS; n++) {
+            double x1 = values[n & mask];
+            double y1 = values[(n + 1) & mask];
+            double x2 = values[(n + 2) & mask];
+            double y2 = values[(n + 3) & mask];
+            if (PhysicsManager.circleCircleCollision(x1, y1, 35, x2, y2, 35)) {
+                numCollisions++;
+            }
+            if (PhysicsManager.circleRectangleCollision(x1, y1, 102, 136, x2, y2, 35)) {
+                numCollisions++;
+            }
+            if (PhysicsManager.rectangleRectangleCollision(x1, y1, 70, 70, x2, y2, 70, 70)) {
+                numCollisions++;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package game.benchmarks;
+
+import engine.Vector2;
+import engine.subsystems.PhysicsManager;
+import game.Game;
+import game.gameobjects.Ball;
+import game.gameobjects.BallArray;
+import game.gameobjects.Coin;
+import game.gameobjects.Player;
+import game.gamestates.LevelState;
+import game.map.Background;
+import game.map.TileMap;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares updating a level with its coins and balls as Coin and Ball objects in lists with updating it with a
+ * CoinArray and a BallArray, for 25 to 100,000 coins and balls. The level is level2hard with its coins and balls
+ * replaced by as many as are measured, placed at random where there are no tiles. Every update is a whole LevelState.update(), with the ActivityRegion and
+ * the broad phases for the lists, and the collisions with the player and between balls. Used to choose
+ * ENTITY_ARRAY_THRESHOLD in LevelState.
+ *
+ * Usage: EntityArrayBenchmark
+ */
+public class EntityArrayBenchmark extends Benchmark {
+    private static final int[] NUM_ENTITIES = {25, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 100000};
+    private static final int TOTAL_ENTITY_UPDATES = 5000000;    // Entities times updates in each measurement round
+    private static final int PLAYER_X = 2560;       // Middle of level2, so the screen is in the middle too
+    private static final int PLAYER_Y = -1000;      // Above the balls, which bounce as high as they started
+
+    /**
+     * Level2 with copies of its coins and balls, using the lists or the arrays.
+     */
+    private static class CrowdedLevel extends LevelState {
+        private final int numEntities;
+        private final boolean arrays;
+
+        private CrowdedLevel(int numEntities, boolean arrays) {
+            super();
+            this.numEntities = numEntities;
+            this.arrays = arrays;
+        }
+
+        @Override
+        public void create() {
+            coinSound = Game.loader.loadSound("/sound/coin.wav");
+            ballSound = Game.loader.loadSound("/sound/bomb.wav");
+            jumpSound = Game.loader.loadSound("/sound/jump.wav");
+            background = new Background("/backgrounds/desert.png", 0.1);
+            ArrayList<Coin> levelCoins = new ArrayList<>();
+            ArrayList<Ball> levelBalls = new ArrayList<>();
+            tileMap = new TileMap("/levels/level2hard.txt", "/tiles/desert/", 128, levelCoins, levelBalls);
+
+            // Same share of coins and balls as the level, at random places that aren't blocked
+            Random random = new Random(numEntities);
+            int numCoins = numEntities * levelCoins.size() / (levelCoins.size() + levelBalls.size());
+            coins = new ArrayList<>(numCoins);
+            for (int i = 0; i < numCoins; i++) {
+                Vector2 position = getFreePosition(random);
+                coins.add(new Coin(tileMap, position.x, position.y));
+            }
+            balls = new ArrayList<>(numEntities - numCoins);
+            for (int i = numCoins; i < numEntities; i++) {
+                Vector2 position = getFreePosition(random);
+                balls.add(new Ball(tileMap, position.x, position.y));
+            }
+
+            createBroadPhases(PhysicsManager.BroadPhaseType.SWEEP_AND_PRUNE);
+            useEntityArrays(arrays ? 0 : Integer.MAX_VALUE);
+            player = new Player(tileMap, PLAYER_X, PLAYER_Y);
+        }
+
+        /**
+         * Keep player above the level, where the balls can't reach it, so the same coins and balls are updated
+         * every time.
+         */
+        @Override
+        public void update(double delta) {
+            player.setPosition(PLAYER_X, PLAYER_Y);
+            super.update(delta);
+        }
+
+        /**
+         * Returns a random position where a coin or ball doesn't overlap a blocked tile.
+         *
+         * @param random Random
+         * @return Vector2 with the top left corner
+         */
+        private Vector2 getFreePosition(Random random) {
+            int tileSize = tileMap.getTileSize();
+            while (true) {
+                double x = random.nextDouble() * (tileMap.getNumCols() * tileSize - BallArray.SIZE);
+                double y = random.nextDouble() * (tileMap.getNumRows() * tileSize - BallArray.SIZE);
+                int firstCol = (int) x / tileSize;
+                int lastCol = (int) (x + BallArray.SIZE) / tileSize;
+                boolean blocked = false;
+                for (int row = (int) y / tileSize; row <= (int) (y + BallArray.SIZE) / tileSize; row++) {
+                    blocked |= tileMap.isRowSpanBlocked(row, firstCol, lastCol);
+                }
+                if (!blocked) {
+                    return new Vector2(x, y);
+                }
+            }
+        }
+
+        private int getNumEntities() {
+            return ballArray != null ? coinArray.getCount() + ballArray.getCount() : coins.size() + balls.size();
+        }
+    }
+
+    public static void main(String[] args) {
+        new EntityArrayBenchmark().start();
+    }
+
+    @Override
+    protected boolean runBenchmark() {
+        System.out.println("Time per level update");
+        System.out.printf("%8s %12s %12s %8s%n", "entities", "objects", "arrays", "speedup");
+        for (int numEntities : NUM_ENTITIES) {
+            double objects = measureLevel(new CrowdedLevel(numEntities, false));
+            double arrays = measureLevel(new CrowdedLevel(numEntities, true));
+            System.out.printf("%8d %9.1f us %9.1f us %8.2f%n",
+                    numEntities, objects / 1000, arrays / 1000, objects / arrays);
+        }
+        return true;
+    }
+
+    /**
+     * Create a level and measure its update.
+     *
+     * @param level CrowdedLevel
+     * @return double with the time of one update in nanoseconds
+     */
+    private static double measureLevel(CrowdedLevel level) {
+        level.create();
+        double time = measure(Math.max(5, TOTAL_ENTITY_UPDATES / level.numEntities), () -> level.update(1));
+        if (level.getNumEntities() != level.numEntities) {
+            System.out.println("Coins or balls were removed, " + level.getNumEntities() + " left");
+        }
+        return time;
+    }
+}
@@ -0,0 +1,122 @@
+package game.benchmarks;
+
+import game.gameobjects.Ball;
+import game.gameobjects.BallArray;
+import game.gameobjects.Coin;
+import game.map.TileMap;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the parallel update of a BallArray with pools of 2, 4 and more threads, up to twice the number of
+ * processors, against the serial update. The balls are copies of the balls of level2hard, moved a little to the
+ * side so they don't all take the same path. Also checks that the parallel update gives the same balls as the
+ * serial update while balls explode and collide.
+ *
+ * BallArray updates serially unless a pool is set, set one only where this shows a speedup.
+ *
+ * Usage: ParallelBallBenchmark
+ */
+public class ParallelBallBenchmark extends Benchmark {
+    private static final String LEVEL = "/levels/level2hard.txt";
+    private static final int[] NUM_BALLS = {10000, 100000};
+    private static final int CHECKED_BALLS = 8192;     // Eight ranges of the parallel update
+    private static final int CHECKED_UPDATES = 150;
+    private static final int TOTAL_BALL_UPDATES = 5000000;  // Balls times updates in each measurement round
+
+    public static void main(String[] args) {
+        new ParallelBallBenchmark().start();
+    }
+
+    @Override
+    protected boolean runBenchmark() {
+        ArrayList<Coin> coins = new ArrayList<>();
+        ArrayList<Ball> balls = new ArrayList<>();
+        TileMap tileMap = new TileMap(LEVEL, "/tiles/desert/", 128, coins, balls);
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.println(processors + " processors, time per update");
+
+        for (int numBalls : NUM_BALLS) {
+            BallArray ballArray = createBalls(tileMap, balls, numBalls);
+            double serial = measure(Math.max(5, TOTAL_BALL_UPDATES / numBalls), () -> ballArray.update(1));
+            System.out.printf("%7d balls serial %10.1f us%n", numBalls, serial / 1000);
+
+            for (int threads = 2; threads <= Math.max(4, processors * 2); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                BallArray parallelArray = createBalls(tileMap, balls, numBalls);
+                parallelArray.setPool(pool);
+                double parallel = measure(Math.max(5, TOTAL_BALL_UPDATES / numBalls), () -> parallelArray.update(1));
+                System.out.printf("%7d balls %2d threads %8.1f us, speedup %.2f%n",
+                        numBalls, threads, parallel / 1000, serial / parallel);
+                pool.shutdown();
+            }
+        }
+
+        boolean passed = checkSameResult(tileMap, balls);
+        System.out.println(passed ? "Parallel update is the same as the serial update"
+                : "FAILED, parallel update differs from the serial update");
+        return passed;
+    }
+
+    /**
+     * Create a BallArray with copies of the balls of a level. The copies are moved up to 20 pixels to the side.
+     *
+     * @param tileMap TileMap
+     * @param balls ArrayList with the balls of the level
+     * @param numBalls int
+     * @return BallArray
+     */
+    private static BallArray createBalls(TileMap tileMap, ArrayList<Ball> balls, int numBalls) {
+        Random random = new Random(1);
+        BallArray ballArray = new BallArray(tileMap, numBalls);
+        for (int i = 0; i < numBalls; i++) {
+            Ball ball = balls.get(i % balls.size());
+            ballArray.add(ball.getX() + random.nextInt(41) - 20, ball.getY(),
+                    ball.getVelocity().x, ball.getVelocity().y);
+        }
+        return ballArray;
+    }
+
+    /**
+     * Update the same balls serially and in parallel, with explosions and collisions between balls, and compare
+     * them.
+     *
+     * @param tileMap TileMap
+     * @param balls ArrayList with the balls of the level
+     * @return true if the balls are the same
+     */
+    private static boolean checkSameResult(TileMap tileMap, ArrayList<Ball> balls) {
+        BallArray serial = createBalls(tileMap, balls, CHECKED_BALLS);
+        BallArray parallel = createBalls(tileMap, balls, CHECKED_BALLS);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.setPool(pool);
+        for (int update = 0; update < CHECKED_UPDATES; update++) {
+            if (update % 50 == 0) {
+                for (int i = 0; i < 200; i++) {
+                    serial.explode((i * 7 + update) % serial.getCount());
+                    parallel.explode((i * 7 + update) % parallel.getCount());
+                }
+            }
+            serial.update(1);
+            serial.collideBalls();
+            parallel.update(1);
+            parallel.collideBalls();
+        }
+        pool.shutdown();
+
+        if (serial.getCount() != parallel.getCount()) {
+            return false;
+        }
+        for (int i = 0; i < serial.getCount(); i++) {
+            if (serial.getX(i) != parallel.getX(i) || serial.getY(i) != parallel.getY(i)
+                    || serial.getVelocityX(i) != parallel.getVelocityX(i)
+                    || serial.getVelocityY(i) != parallel.getVelocityY(i)
+                    || serial.isExploding(i) != parallel.isExploding(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package game.benchmarks;
+
+import game.Game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Compares drawing sprites scaled by drawImage, like the game objects did before, with drawing the pre-scaled and
+ * pre-mirrored frames from Loader.loadScaledImage() 1:1. Uses the sizes the game draws: a 70x70 coin and a 102x136
+ * player facing left, which was drawn with a negative width.
+ *
+ * Usage: SpriteBlitBenchmark
+ */
+public class SpriteBlitBenchmark extends Benchmark {
+    private static final int DRAWS = 30000;
+    private static final int COIN_SIZE = 70;
+    private static final int PLAYER_WIDTH = 102;
+    private static final int PLAYER_HEIGHT = 136;
+
+    public static void main(String[] args) {
+        new SpriteBlitBenchmark().start();
+    }
+
+    @Override
+    protected boolean runBenchmark() {
+        Graphics2D g = Game.renderer.getGraphics2D();
+        BufferedImage coin = Game.loader.loadImage("/coin/0.png");
+        BufferedImage player = Game.loader.loadImage("/player/idle/0.png");
+        BufferedImage scaledCoin = Game.loader.loadScaledImage(coin, COIN_SIZE, COIN_SIZE, false);
+        BufferedImage mirroredPlayer = Game.loader.loadScaledImage(player, PLAYER_WIDTH, PLAYER_HEIGHT, true);
+
+        System.out.println("Time per draw on a " + Game.renderer.getScreenWidth() + "x"
+                + Game.renderer.getScreenHeight() + " image");
+        double before = measure(DRAWS, () -> g.drawImage(coin, 10, 10, COIN_SIZE, COIN_SIZE, null));
+        double after = measure(DRAWS, () -> g.drawImage(scaledCoin, 10, 10, null));
+        System.out.printf("coin %dx%d from %dx%d     scaled %6.1f us, pre-scaled   %6.1f us%n",
+                COIN_SIZE, COIN_SIZE, coin.getWidth(), coin.getHeight(), before / 1000, after / 1000);
+
+        before = measure(DRAWS, () -> g.drawImage(player, 10 + PLAYER_WIDTH, 10, -PLAYER_WIDTH, PLAYER_HEIGHT, null));
+        after = measure(DRAWS, () -> g.drawImage(mirroredPlayer, 10, 10, null));
+        System.out.printf("player %dx%d from %dx%d mirrored %6.1f us, pre-mirrored %6.1f us%n",
+                PLAYER_WIDTH, PLAYER_HEIGHT, player.getWidth(), player.getHeight(), before / 1000, after / 1000);
+        return true;
+    }
+}
@@ -20,6 +20,8 @@ public class Ball extends GameObject {
         EXPLODING
     }
 
+    private static final int MAX_BOUNCES = 4;   // Tiles the ball can bounce on in one update
+
     private Action currentAction;
     private double maxFallingSpeed;
     private Vector2 energyLoss;
@@ -37,17 +39,43 @@ public class Ball extends GameObject {
         energyLoss = new Vector2(1, 1); // Make values less then 1 if ball should stop bouncing eventually
 
         // Animations
-        BufferedImage[] ballSprites = new BufferedImage[1];
-        ballSprites[0] = Game.loader.loadImage("/ball/ball.png");
-        BufferedImage[] explotionSprites = Game.loader.loadSpriteSheet("/ball/explosion.png", 3, 8, 21);
-        sprite.addAnimation("ball", new Animation(ballSprites, 1000));
-        sprite.addAnimation("explosion", new Animation(explotionSprites, 100));
+        sprite.addAnimation("ball", createBallAnimation(width, height));
+        sprite.addAnimation("explosion", createExplosionAnimation(width * 2, height * 2));  // Twice the ball size
         sprite.setAnimation("ball");
         currentAction = Action.BOUNCING;
 
         setRandomDirection();
     }
 
+    /**
+     * Create the animation of a bouncing ball, prepared for a size.
+     *
+     * @param width int
+     * @param height int
+     * @return Animation
+     */
+    public static Animation createBallAnimation(int width, int height) {
+        BufferedImage[] ballSprites = new BufferedImage[1];
+        ballSprites[0] = Game.loader.loadImage("/ball/ball.png");
+        Animation ballAnimation = new Animation(ballSprites, 1000);
+        ballAnimation.prepare(width, height, false);
+        return ballAnimation;
+    }
+
+    /**
+     * Create the animation of an exploding ball, prepared for a size.
+     *
+     * @param width int
+     * @param height int
+     * @return Animation
+     */
+    public static Animation createExplosionAnimation(int width, int height) {
+        BufferedImage[] explosionSprites = Game.loader.loadSpriteSheet("/ball/explosion.png", 3, 8, 21);
+        Animation explosionAnimation = new Animation(explosionSprites, 100);
+        explosionAnimation.prepare(width, height, false);
+        return explosionAnimation;
+    }
+
     /**
      * Set a random horizontal direction of the Ball.
      */
@@ -75,10 +103,10 @@ public class Ball extends GameObject {
                 velocity.y = maxFallingSpeed;
             }
 
-            tileCollision();
+            tileCollision(delta);
         }
 
-        sprite.update();
+        sprite.update(delta);
     }
 
     /**
@@ -103,68 +131,50 @@ public class Ball extends GameObject {
     }
 
     /**
-     * Handle collisions with the tile map.
+     * Handle collisions with the tile map. The ball is moved until it hits a tile, bounces and keeps moving for the
+     * rest of the update.
+     *
+     * @param delta double
      */
-    private void tileCollision() {
-        double destinationX = position.x + velocity.x;
-        double destinationY = position.y + velocity.y;
-        double tempX = position.x;
-        double tempY = position.y;
-
-        // Vertical collisions
-        checkSurroundingTiles(position.x, destinationY);
-
-        if (velocity.y < 0) {   // Moving up
-            if (topLeft || topRight) {  // Collision
-                velocity.y = Math.abs(velocity.y);
-            } else {
-                tempY += velocity.y;
+    private void tileCollision(double delta) {
+        double remaining = 1;   // Fraction of the movement left in this update
+
+        for (int i = 0; i < MAX_BOUNCES && remaining > 0; i++) {
+            boolean hit = sweep(velocity.x * delta * remaining, velocity.y * delta * remaining);
+            position.set(tileSweep.getX(), tileSweep.getY());
+            if (!hit) {
+                break;
             }
-        } else if (velocity.y > 0) {    // Moving down
-            if (bottomLeft || bottomRight) {    // Collision
+            remaining *= 1 - tileSweep.getTime();
+
+            // Vertical collisions
+            if (tileSweep.getNormalY() < 0) {    // Hit the ground
                 velocity.y = -velocity.y * energyLoss.y;
                 velocity.x *= energyLoss.x;
                 if (Math.abs(velocity.x) < 0.8) {
                     velocity.x = 0;
                 }
-            } else {
-                tempY += velocity.y;
+            } else if (tileSweep.getNormalY() > 0) {    // Hit the ceiling
+                velocity.y = Math.abs(velocity.y);
             }
-        }
-
-        // Horizontal collisions
-        checkSurroundingTiles(destinationX, position.y);
 
-        if (velocity.x < 0) {   // Moving left
-            if (topLeft || bottomLeft) {  // Collision
-                velocity.x = Math.abs(velocity.x) * energyLoss.x;
-            } else {
-                tempX += velocity.x;
-            }
-        } else if (velocity.x > 0) {    // Moving right
-            if (topRight || bottomRight) {    // Collision
+            // Horizontal collisions
+            if (tileSweep.getNormalX() != 0) {
                 velocity.x = -velocity.x * energyLoss.x;
-            } else {
-                tempX += velocity.x;
             }
         }
-
-        // Set x and y
-        position.set(tempX, tempY);
     }
 
     @Override
-    public void draw() {
-        double mapX = tileMap.getX();
-        double mapY = tileMap.getY();
+    public void draw(double alpha) {
+        double mapX = tileMap.getDrawX(alpha);
+        double mapY = tileMap.getDrawY(alpha);
 
 
         Game.renderer.getGraphics2D().drawImage(
-                sprite.getAnimation().getImage(),
-                (int) (mapX + position.x),
-                (int) (mapY + position.y),
-                width,
-                height,
+                sprite.getAnimation().getImage(width, height, false),
+                (int) (mapX + getDrawX(alpha)),
+                (int) (mapY + getDrawY(alpha)),
                 null
         );
     }
@@ -0,0 +1,401 @@
+package game.gameobjects;
+
+import engine.Animation;
+import engine.GameEngine;
+import engine.GameObject;
+import engine.TileSweep;
+import engine.subsystems.PhysicsManager;
+import game.Game;
+import game.map.TileMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Balls stored in parallel arrays of primitives instead of one Ball object each. The balls look and behave like
+ * Ball, but they are updated and drawn in batches and use a few bytes each instead of several objects.
+ * Removing a ball moves the last ball into its place, so the order of the balls changes.
+ *
+ * A ball only reads the TileMap and its own state when it moves, so with many balls the update can be split into
+ * ranges that are updated in parallel on a ForkJoinPool set with setPool(). Everything that changes other balls or
+ * the order of the balls, removing exploded balls and collisions between balls, is done afterwards on the calling
+ * thread in a fixed order, so the result is the same as a serial update. There is no pool by default, the parallel
+ * update hasn't been faster than the serial update yet, see ParallelBallBenchmark.
+ */
+public class BallArray {
+    public static final int SIZE = 70;          // Width and height of a ball
+    private static final int EXPLOSION_SIZE = SIZE * 2;
+    private static final double MAX_FALLING_SPEED = 15.0;
+    private static final double ENERGY_LOSS = 1;    // Make less then 1 if balls should stop bouncing eventually
+    private static final int MAX_BOUNCES = 4;       // Tiles a ball can bounce on in one update
+    private static final int INDEX_BITS = 24;       // Bits of the index in the keys used to sort balls by x
+    private static final int PARALLEL_THRESHOLD = 4096;     // Fewer balls than this are updated serially
+    private static final int MIN_RANGE = 1024;      // Balls updated by one task, ranges start at multiples of it
+
+    // States
+    private static final byte BOUNCING = 0;
+    private static final byte EXPLODING = 1;
+    private static final byte EXPLODED = 2;     // Explosion has been played, removed at the end of the update
+
+    private final TileMap tileMap;
+    private final TileSweep tileSweep;
+    private TileSweep[] rangeSweeps;            // One for each range of MIN_RANGE balls in the parallel update
+    private final Animation ballAnimation;      // Shared by all balls, only used for their frames
+    private final Animation explosionAnimation;
+    private int count;
+    private double[] x, y;
+    private double[] previousX, previousY;      // Position before the last update, used when drawing
+    private double[] velocityX, velocityY;
+    private byte[] state;
+    private int[] frame;
+    private double[] frameTime;                 // Milliseconds since the frame changed
+    private long[] sortKeys;                    // Balls sorted by x, used to find collisions between balls
+    private ForkJoinPool pool;                  // Used for the parallel update, serial update if null (default)
+
+    // Values used by all balls in the current update
+    private double delta;
+    private double gravity;
+    private double elapsed;
+
+    public BallArray(TileMap tileMap, int capacity) {
+        this.tileMap = tileMap;
+        tileSweep = new TileSweep();
+        rangeSweeps = new TileSweep[0];
+        ballAnimation = Ball.createBallAnimation(SIZE, SIZE);
+        explosionAnimation = Ball.createExplosionAnimation(EXPLOSION_SIZE, EXPLOSION_SIZE);
+        capacity = Math.max(capacity, 16);
+        x = new double[capacity];
+        y = new double[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        state = new byte[capacity];
+        frame = new int[capacity];
+        frameTime = new double[capacity];
+        sortKeys = new long[capacity];
+    }
+
+    /**
+     * Updates the ranges of MIN_RANGE balls from firstRange to endRange, split in two halves that are updated in
+     * parallel until there is one range left. Each range uses its own TileSweep from rangeSweeps.
+     */
+    private class UpdateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int firstRange;
+        private final int endRange;
+
+        private UpdateTask(int firstRange, int endRange) {
+            this.firstRange = firstRange;
+            this.endRange = endRange;
+        }
+
+        @Override
+        protected void compute() {
+            if (endRange - firstRange == 1) {
+                updateRange(firstRange * MIN_RANGE, Math.min(count, (firstRange + 1) * MIN_RANGE),
+                        rangeSweeps[firstRange]);
+            } else {
+                int middle = (firstRange + endRange) >>> 1;
+                invokeAll(new UpdateTask(firstRange, middle), new UpdateTask(middle, endRange));
+            }
+        }
+    }
+
+    /**
+     * Add a bouncing ball.
+     *
+     * @param x double
+     * @param y double
+     * @param velocityX double
+     * @param velocityY double
+     */
+    public void add(double x, double y, double velocityX, double velocityY) {
+        if (count == this.x.length) {
+            grow(count * 2);
+        }
+        this.x[count] = x;
+        this.y[count] = y;
+        previousX[count] = x;
+        previousY[count] = y;
+        this.velocityX[count] = velocityX;
+        this.velocityY[count] = velocityY;
+        state[count] = BOUNCING;
+        frame[count] = 0;
+        frameTime[count] = 0;
+        count++;
+    }
+
+    private void grow(int capacity) {
+        if (capacity > 1 << INDEX_BITS) {
+            throw new IllegalStateException("Too many balls");
+        }
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        state = Arrays.copyOf(state, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        frameTime = Arrays.copyOf(frameTime, capacity);
+        sortKeys = new long[capacity];
+    }
+
+    /**
+     * Remove a ball by moving the last ball into its place.
+     *
+     * @param i int
+     */
+    public void remove(int i) {
+        count--;
+        x[i] = x[count];
+        y[i] = y[count];
+        previousX[i] = previousX[count];
+        previousY[i] = previousY[count];
+        velocityX[i] = velocityX[count];
+        velocityY[i] = velocityY[count];
+        state[i] = state[count];
+        frame[i] = frame[count];
+        frameTime[i] = frameTime[count];
+    }
+
+    /**
+     * Update all balls. Bouncing balls are moved by gravity and bounce on the tiles, exploding balls are removed
+     * when the explosion has been played once. Many balls are updated in parallel if a pool is set, see the class
+     * comment.
+     *
+     * @param delta double
+     */
+    public void update(double delta) {
+        this.delta = delta;
+        gravity = Game.physicsManager.getGravity() * delta;
+        elapsed = delta * 1000 / GameEngine.FPS;    // Milliseconds in this update
+
+        if (pool == null || pool.getParallelism() < 2 || count < PARALLEL_THRESHOLD) {
+            updateRange(0, count, tileSweep);
+        } else {
+            int numRanges = (count + MIN_RANGE - 1) / MIN_RANGE;
+            if (rangeSweeps.length < numRanges) {
+                int oldLength = rangeSweeps.length;
+                rangeSweeps = Arrays.copyOf(rangeSweeps, numRanges);
+                for (int i = oldLength; i < numRanges; i++) {
+                    rangeSweeps[i] = new TileSweep();
+                }
+            }
+            pool.invoke(new UpdateTask(0, numRanges));
+        }
+
+        // Backwards so the ball moved into the place of a removed ball has already been checked
+        for (int i = count - 1; i >= 0; i--) {
+            if (state[i] == EXPLODED) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Update a range of balls. Only changes the balls in the range, so ranges can be updated at the same time
+     * with one TileSweep each.
+     *
+     * @param start int, first ball
+     * @param end int, one past the last ball
+     * @param tileSweep TileSweep
+     */
+    private void updateRange(int start, int end, TileSweep tileSweep) {
+        for (int i = start; i < end; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+
+            if (state[i] == EXPLODING) {
+                frameTime[i] += elapsed;
+                if (frameTime[i] > explosionAnimation.getDelay()) {
+                    frameTime[i] = 0;
+                    frame[i]++;
+                    if (frame[i] == explosionAnimation.getNumFrames()) {
+                        state[i] = EXPLODED;
+                    }
+                }
+                continue;
+            }
+
+            velocityY[i] = Math.min(velocityY[i] + gravity, MAX_FALLING_SPEED);
+            tileCollision(i, tileSweep);
+        }
+    }
+
+    /**
+     * Move a ball until it hits a tile, bounce and keep moving for the rest of the update. Same as in Ball.
+     *
+     * @param i int
+     * @param tileSweep TileSweep
+     */
+    private void tileCollision(int i, TileSweep tileSweep) {
+        double remaining = 1;   // Fraction of the movement left in this update
+
+        for (int bounce = 0; bounce < MAX_BOUNCES && remaining > 0; bounce++) {
+            boolean hit = tileSweep.sweep(tileMap, x[i], y[i], SIZE, SIZE,
+                    velocityX[i] * delta * remaining, velocityY[i] * delta * remaining);
+            x[i] = tileSweep.getX();
+            y[i] = tileSweep.getY();
+            if (!hit) {
+                break;
+            }
+            remaining *= 1 - tileSweep.getTime();
+
+            // Vertical collisions
+            if (tileSweep.getNormalY() < 0) {    // Hit the ground
+                velocityY[i] = -velocityY[i] * ENERGY_LOSS;
+                velocityX[i] *= ENERGY_LOSS;
+                if (Math.abs(velocityX[i]) < 0.8) {
+                    velocityX[i] = 0;
+                }
+            } else if (tileSweep.getNormalY() > 0) {    // Hit the ceiling
+                velocityY[i] = Math.abs(velocityY[i]);
+            }
+
+            // Horizontal collisions
+            if (tileSweep.getNormalX() != 0) {
+                velocityX[i] = -velocityX[i] * ENERGY_LOSS;
+            }
+        }
+    }
+
+    /**
+     * Start the explosion of a ball. It's removed when the explosion has been played.
+     *
+     * @param i int
+     */
+    public void explode(int i) {
+        state[i] = EXPLODING;
+        frame[i] = 0;
+        frameTime[i] = 0;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+    }
+
+    /**
+     * Explode the bouncing balls colliding with a game object.
+     *
+     * @param gameObject GameObject, usually the player
+     * @return int, number of balls that started exploding
+     */
+    public int explodeColliding(GameObject gameObject) {
+        int exploded = 0;
+        double radius = SIZE / 2.0;
+        for (int i = 0; i < count; i++) {
+            if (state[i] == BOUNCING && PhysicsManager.circleRectangleCollision(gameObject.getX(), gameObject.getY(),
+                    gameObject.getWidth(), gameObject.getHeight(), x[i] + radius, y[i] + radius, radius)) {
+                explode(i);
+                exploded++;
+            }
+        }
+        return exploded;
+    }
+
+    /**
+     * Handle collisions between balls. When colliding the balls get the velocity of the other ball.
+     * The balls are sorted by x and only balls closer than a ball width on the x-axis are checked.
+     */
+    public void collideBalls() {
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = ((long) Math.floor(x[i]) << INDEX_BITS) | i;
+        }
+        Arrays.sort(sortKeys, 0, count);
+
+        double radius = SIZE / 2.0;
+        long indexMask = (1L << INDEX_BITS) - 1;
+        for (int a = 0; a < count; a++) {
+            int i = (int) (sortKeys[a] & indexMask);
+            if (state[i] != BOUNCING) {
+                continue;
+            }
+            for (int b = a + 1; b < count; b++) {
+                int j = (int) (sortKeys[b] & indexMask);
+                if (x[j] - x[i] > SIZE) {
+                    break;
+                }
+                if (state[j] == BOUNCING && PhysicsManager.circleCircleCollision(
+                        x[i] + radius, y[i] + radius, radius, x[j] + radius, y[j] + radius, radius)) {
+                    double swapX = velocityX[i];
+                    double swapY = velocityY[i];
+                    velocityX[i] = velocityX[j];
+                    velocityY[i] = velocityY[j];
+                    velocityX[j] = swapX;
+                    velocityY[j] = swapY;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw the balls that are on the screen, between their last two positions.
+     *
+     * @param alpha double between 0 and 1
+     */
+    public void draw(double alpha) {
+        double mapX = tileMap.getDrawX(alpha);
+        double mapY = tileMap.getDrawY(alpha);
+        int screenWidth = Game.renderer.getScreenWidth();
+        int screenHeight = Game.renderer.getScreenHeight();
+
+        for (int i = 0; i < count; i++) {
+            int drawX = (int) (mapX + previousX[i] + (x[i] - previousX[i]) * alpha);
+            int drawY = (int) (mapY + previousY[i] + (y[i] - previousY[i]) * alpha);
+            int size = SIZE;
+            if (state[i] == EXPLODING) {    // Explosion is centered on the ball
+                drawX -= (EXPLOSION_SIZE - SIZE) / 2;
+                drawY -= (EXPLOSION_SIZE - SIZE) / 2;
+                size = EXPLOSION_SIZE;
+            }
+            if (drawX + size > 0 && drawX < screenWidth && drawY + size > 0 && drawY < screenHeight) {
+                Animation animation = state[i] == EXPLODING ? explosionAnimation : ballAnimation;
+                Game.renderer.getGraphics2D().drawImage(
+                        animation.getImage(frame[i], size, size, false), drawX, drawY, null);
+            }
+        }
+    }
+
+    // Getter methods
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    public double getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    public boolean isExploding(int i) {
+        return state[i] == EXPLODING;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    // Setter methods
+
+    /**
+     * Set the pool used for the parallel update. Only worth it if ParallelBallBenchmark shows a speedup on the
+     * target machine.
+     *
+     * @param pool ForkJoinPool, or null to always update serially
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+}
@@ -21,33 +21,44 @@ public class Coin extends GameObject {
         width = 70;
         height = 70;
 
+        sprite.addAnimation("coin", createAnimation(width, height));
+        sprite.setAnimation("coin");
+    }
+
+    /**
+     * Create the animation of a spinning coin, prepared for a size.
+     *
+     * @param width int
+     * @param height int
+     * @return Animation
+     */
+    public static Animation createAnimation(int width, int height) {
         BufferedImage[] coinSprites = new BufferedImage[10];
 
         for (int i = 0; i < coinSprites.length; i++) {
             coinSprites[i] = Game.loader.loadImage("/coin/" + i + ".png");
         }
 
-        sprite.addAnimation("coin", new Animation(coinSprites, 200));
-        sprite.setAnimation("coin");
+        Animation coinAnimation = new Animation(coinSprites, 200);
+        coinAnimation.prepare(width, height, false);
+        return coinAnimation;
     }
 
     @Override
     public void update(double delta) {
-        sprite.update();
+        sprite.update(delta);
     }
 
     @Override
-    public void draw() {
-        double mapX = tileMap.getX();
-        double mapY = tileMap.getY();
+    public void draw(double alpha) {
+        double mapX = tileMap.getDrawX(alpha);
+        double mapY = tileMap.getDrawY(alpha);
 
         try {
             Game.renderer.getGraphics2D().drawImage(
-                    sprite.getAnimation().getImage(),
+                    sprite.getAnimation().getImage(width, height, false),
                     (int) (mapX + position.x),
                     (int) (mapY + position.y),
-                    width,
-                    height,
                     null
             );
         } catch (NullPointerException e) {
@@ -0,0 +1,143 @@
+package game.gameobjects;
+
+import engine.Animation;
+import engine.GameEngine;
+import engine.GameObject;
+import engine.subsystems.PhysicsManager;
+import game.Game;
+import game.map.TileMap;
+
+import java.util.Arrays;
+
+/**
+ * Coins stored in parallel arrays of primitives instead of one Coin object each. The coins look and behave like
+ * Coin, but they are updated and drawn in batches and use a few bytes each instead of several objects.
+ * Removing a coin moves the last coin into its place, so the order of the coins changes.
+ */
+public class CoinArray {
+    public static final int SIZE = 70;  // Width and height of a coin
+
+    private final TileMap tileMap;
+    private final Animation animation;  // Shared by all coins, only used for its frames
+    private int count;
+    private double[] x, y;
+    private int[] frame;
+    private double[] frameTime;         // Milliseconds since the frame changed
+
+    public CoinArray(TileMap tileMap, int capacity) {
+        this.tileMap = tileMap;
+        animation = Coin.createAnimation(SIZE, SIZE);
+        capacity = Math.max(capacity, 16);
+        x = new double[capacity];
+        y = new double[capacity];
+        frame = new int[capacity];
+        frameTime = new double[capacity];
+    }
+
+    /**
+     * Add a coin.
+     *
+     * @param x double
+     * @param y double
+     */
+    public void add(double x, double y) {
+        if (count == this.x.length) {
+            int capacity = count * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            frame = Arrays.copyOf(frame, capacity);
+            frameTime = Arrays.copyOf(frameTime, capacity);
+        }
+        this.x[count] = x;
+        this.y[count] = y;
+        frame[count] = 0;
+        frameTime[count] = 0;
+        count++;
+    }
+
+    /**
+     * Remove a coin by moving the last coin into its place.
+     *
+     * @param i int
+     */
+    public void remove(int i) {
+        count--;
+        x[i] = x[count];
+        y[i] = y[count];
+        frame[i] = frame[count];
+        frameTime[i] = frameTime[count];
+    }
+
+    /**
+     * Update the animation of all coins.
+     *
+     * @param delta double
+     */
+    public void update(double delta) {
+        double elapsed = delta * 1000 / GameEngine.FPS;     // Milliseconds in this update
+        long delay = animation.getDelay();
+        int numFrames = animation.getNumFrames();
+
+        for (int i = 0; i < count; i++) {
+            frameTime[i] += elapsed;
+            if (frameTime[i] > delay) {
+                frameTime[i] = 0;
+                frame[i] = (frame[i] + 1) % numFrames;
+            }
+        }
+    }
+
+    /**
+     * Remove the coins colliding with a game object.
+     *
+     * @param gameObject GameObject, usually the player
+     * @return int, number of coins removed
+     */
+    public int collect(GameObject gameObject) {
+        int collected = 0;
+        double radius = SIZE / 2.0;
+        for (int i = count - 1; i >= 0; i--) {
+            if (PhysicsManager.circleRectangleCollision(gameObject.getX(), gameObject.getY(), gameObject.getWidth(),
+                    gameObject.getHeight(), x[i] + radius, y[i] + radius, radius)) {
+                remove(i);
+                collected++;
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * Draw the coins that are on the screen.
+     *
+     * @param alpha double between 0 and 1
+     */
+    public void draw(double alpha) {
+        double mapX = tileMap.getDrawX(alpha);
+        double mapY = tileMap.getDrawY(alpha);
+        int screenWidth = Game.renderer.getScreenWidth();
+        int screenHeight = Game.renderer.getScreenHeight();
+
+        for (int i = 0; i < count; i++) {
+            int drawX = (int) (mapX + x[i]);
+            int drawY = (int) (mapY + y[i]);
+            if (drawX + SIZE > 0 && drawX < screenWidth && drawY + SIZE > 0 && drawY < screenHeight) {
+                Game.renderer.getGraphics2D().drawImage(
+                        animation.getImage(frame[i], SIZE, SIZE, false), drawX, drawY, null);
+            }
+        }
+    }
+
+    // Getter methods
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+}
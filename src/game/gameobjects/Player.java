@@ -20,6 +20,8 @@ public class Player extends GameObject {
         DIZZY
     }
 
+    private static final int MAX_SLIDES = 3;    // Tiles the player can hit in one update
+
     private Action currentAction;
     private boolean hitByBall;
     private boolean playDizzyAnimation;
@@ -57,15 +59,27 @@ public class Player extends GameObject {
         fallSprites[0] = Game.loader.loadImage("/player/jump fall/0.png");
         jumpSprites[0] = Game.loader.loadImage("/player/jump up/0.png");
 
-        sprite.addAnimation("idle", new Animation(idleSprites, 300));
-        sprite.addAnimation("run", new Animation(runSprites, 100));
-        sprite.addAnimation("jump", new Animation(jumpSprites, 1000));
-        sprite.addAnimation("fall", new Animation(fallSprites, 1000));
-        sprite.addAnimation("dizzy", new Animation(dizzySprites, 600));
+        addAnimation("idle", new Animation(idleSprites, 300));
+        addAnimation("run", new Animation(runSprites, 100));
+        addAnimation("jump", new Animation(jumpSprites, 1000));
+        addAnimation("fall", new Animation(fallSprites, 1000));
+        addAnimation("dizzy", new Animation(dizzySprites, 600));
         sprite.setAnimation("idle");
         currentAction = Action.IDLE;
     }
 
+    /**
+     * Add an animation to the sprite with frames prepared for both facing right and left.
+     *
+     * @param name String
+     * @param animation Animation
+     */
+    private void addAnimation(String name, Animation animation) {
+        animation.prepare(width, height, false);
+        animation.prepare(width, height, true);
+        sprite.addAnimation(name, animation);
+    }
+
     @Override
     public void update(double delta) {
         movement.update(delta, velocity);
@@ -74,14 +88,16 @@ public class Player extends GameObject {
             playDizzyAnimation = true;
         }
 
-        updateAnimation();
-        tileCollision();
+        updateAnimation(delta);
+        tileCollision(delta);
     }
 
     /**
      * Change between the different animations depending on whats happening in the game.
+     *
+     * @param delta double
      */
-    private void updateAnimation() {
+    private void updateAnimation(double delta) {
         if (playDizzyAnimation) {
             if (currentAction != Action.DIZZY) {
                 currentAction = Action.DIZZY;
@@ -114,95 +130,61 @@ public class Player extends GameObject {
             }
         }
 
-        sprite.update();
+        sprite.update(delta);
     }
 
     /**
-     * Handle collisions with the tile map. The method checks future positions to prevent getting stuck in the tiles.
+     * Handle collisions with the tile map. The player is moved until it hits a tile, stops along that axis and
+     * slides along the tile for the rest of the update.
+     *
+     * @param delta double
      */
-    private void tileCollision() {
-        int currentColumn = tileMap.getColumnTile((int) position.x);
-        int currentRow = tileMap.getRowTile((int) position.y);
-        Vector2 destination = new Vector2(position.x + velocity.x, position.y + velocity.y);
-        Vector2 temp = new Vector2(position.x, position.y);
-
-        // Vertical collisions
-        checkSurroundingTiles(position.x, destination.y);
-
-        if (velocity.y < 0) {   // Moving up
-            if (topLeft || topRight) {  // Collision
-                velocity.y = 0;
-                temp.y = currentRow * tileMap.getTileSize();    // Move back to free tile
-            } else {
-                temp.y += velocity.y;
+    private void tileCollision(double delta) {
+        double remaining = 1;   // Fraction of the movement left in this update
+
+        for (int i = 0; i < MAX_SLIDES && remaining > 0; i++) {
+            boolean hit = sweep(velocity.x * delta * remaining, velocity.y * delta * remaining);
+            position.set(tileSweep.getX(), tileSweep.getY());
+            if (!hit) {
+                break;
             }
-        } else if (velocity.y > 0) {    // Moving down
-            if (bottomLeft || bottomRight) {    // Collision
+            remaining *= 1 - tileSweep.getTime();
+
+            // Vertical collisions
+            if (tileSweep.getNormalY() < 0) {    // Landed on the ground
                 velocity.y = 0;
                 movement.setFalling(false);
-                temp.y = (currentRow + 2) * tileMap.getTileSize() - height;   // Move back to free tile
-            } else {
-                temp.y += velocity.y;
+            } else if (tileSweep.getNormalY() > 0) {    // Hit the ceiling
+                velocity.y = 0;
             }
-        }
-
-        // Horizontal collisions
-        checkSurroundingTiles(destination.x, position.y);
 
-        if (velocity.x < 0) {   // Moving left
-            if (topLeft || bottomLeft) {  // Collision
-                velocity.x = 0;
-                temp.x = currentColumn * tileMap.getTileSize();    // Move back to free tile
-            } else {
-                temp.x += velocity.x;
-            }
-        } else if (velocity.x > 0) {    // Moving right
-            if (topRight || bottomRight) {    // Collision
+            // Horizontal collisions
+            if (tileSweep.getNormalX() != 0) {
                 velocity.x = 0;
-                temp.x = (currentColumn + 1) * tileMap.getTileSize() - width;   // Move back to free tile
-            } else {
-                temp.x += velocity.x;
             }
         }
 
-        // Check if player is standing on ground
-        if (!movement.isFalling()) {
-            checkSurroundingTiles(position.x, position.y + 1); // y + 1 checks 1 pixel below player
-            if (!bottomLeft && !bottomRight) {  // Not standing on ground
-                movement.setFalling(true);
-            }
+        // Check if player is standing on ground, 1 pixel below player
+        if (!movement.isFalling() && !sweep(0, 1)) {
+            movement.setFalling(true);
         }
-
-        // Set x and y
-        position.set(temp.x, temp.y);
     }
 
     @Override
-    public void draw() {
+    public void draw(double alpha) {
 
         // Map position needs to be added so player is in the right global position
-        double mapX = tileMap.getX();
-        double mapY = tileMap.getY();
-
-        if (movement.isFacingRight()) {
-            Game.renderer.getGraphics2D().drawImage(
-                    sprite.getAnimation().getImage(),
-                    (int) (mapX + position.x),
-                    (int) (mapY + position.y),
-                    width,
-                    height,
-                    null
-            );
-        } else {
-            Game.renderer.getGraphics2D().drawImage(
-                    sprite.getAnimation().getImage(),
-                    (int) (mapX + position.x + width),
-                    (int) (mapY + position.y),
-                    -width,
-                    height,
-                    null
-            );
-        }
+        double mapX = tileMap.getDrawX(alpha);
+        double mapY = tileMap.getDrawY(alpha);
+        double x = getDrawX(alpha);
+        double y = getDrawY(alpha);
+
+        Game.renderer.getGraphics2D().drawImage(
+                sprite.getAnimation().getImage(width, height, !movement.isFacingRight()),  // Mirrored facing left
+                (int) (mapX + x),
+                (int) (mapY + y),
+                null
+        );
     }
 
     public PlatformerMovement getMovement() {
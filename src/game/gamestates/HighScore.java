@@ -44,7 +44,7 @@ public class HighScore extends GameState {
     }
 
     @Override
-    public void draw() {
+    public void draw(double alpha) {
         background.draw();
 
         // Title
@@ -1,5 +1,6 @@
 package game.gamestates;
 
+import engine.subsystems.PhysicsManager;
 import game.Game;
 import game.gameobjects.Player;
 import game.map.Background;
@@ -33,6 +34,8 @@ public class Level1 extends LevelState {
             tileMap = new TileMap("/levels/level1hard.txt", "/tiles/grass/", 128, coins, balls);
         }
 
+        createBroadPhases(PhysicsManager.BroadPhaseType.SWEEP_AND_PRUNE);    // Wide and shallow level
+        useEntityArrays();
         player = new Player(tileMap, 200, 400);
     }
 }
@@ -1,5 +1,6 @@
 package game.gamestates;
 
+import engine.subsystems.PhysicsManager;
 import game.Game;
 import game.gameobjects.Player;
 import game.map.Background;
@@ -33,6 +34,8 @@ public class Level2 extends LevelState {
             tileMap = new TileMap("/levels/level2hard.txt", "/tiles/desert/", 128, coins, balls);
         }
 
+        createBroadPhases(PhysicsManager.BroadPhaseType.SWEEP_AND_PRUNE);    // Wide and shallow level
+        useEntityArrays();
         player = new Player(tileMap, 200, 400);
     }
 }
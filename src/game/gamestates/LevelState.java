@@ -1,23 +1,32 @@
 package game.gamestates;
 
+import engine.ActivityRegion;
 import engine.GameState;
 import engine.SoundClip;
 import engine.Vector2;
+import engine.subsystems.BroadPhase;
 import engine.subsystems.PhysicsManager;
 import game.Game;
 import game.gameobjects.Ball;
+import game.gameobjects.BallArray;
 import game.gameobjects.Coin;
+import game.gameobjects.CoinArray;
 import game.gameobjects.Player;
 import game.map.Background;
 import game.map.TileMap;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Abstract class with variables and methods needed by all levels.
  */
 public abstract class LevelState extends GameState {
+    // Coins and balls needed to use the arrays. The arrays are faster at any count in EntityArrayBenchmark, but
+    // only save about 1% of a frame at 60 FPS from about this many. Smaller levels keep the lists.
+    private static final int ENTITY_ARRAY_THRESHOLD = 2000;
     protected Player player;
     protected ArrayList<Coin> coins;
     protected ArrayList<Ball> balls;
@@ -26,9 +35,25 @@ public abstract class LevelState extends GameState {
     protected SoundClip ballSound;
     protected SoundClip jumpSound;
     protected Background background;
+    protected BroadPhase<Coin> coinBroadPhase;
+    protected BroadPhase<Ball> ballBroadPhase;
+    protected ActivityRegion activityRegion;    // Coins and balls far from the screen are dormant
+    protected CoinArray coinArray;      // Used instead of coins and balls when not null, see useEntityArrays()
+    protected BallArray ballArray;
+    private final ArrayList<Coin> collectedCoins;   // Coins collected this update, reused every update
+
+    // Handlers for the broad phases, created once so checking collisions doesn't allocate
+    private final Consumer<Coin> coinHandler;
+    private final Consumer<Ball> ballHandler;
+    private final BiConsumer<Ball, Ball> ballPairHandler;
 
     public LevelState() {
         super();
+        activityRegion = new ActivityRegion();
+        collectedCoins = new ArrayList<>();
+        coinHandler = this::handleCoin;
+        ballHandler = this::handleBall;
+        ballPairHandler = this::handleBallPair;
     }
 
     @Override
@@ -37,22 +62,109 @@ public abstract class LevelState extends GameState {
     @Override
     public void update(double delta) {
         handleInput();
+        player.storePosition();
         player.update(delta);
-        updateCoins(delta);
-        updateBalls(delta);
-        playerCoinCollision();
-        playerBallCollision();
-        ballCollision();
+        activityRegion.setView(-tileMap.getX(), -tileMap.getY(),
+                Game.renderer.getScreenWidth(), Game.renderer.getScreenHeight());
+        if (ballArray != null) {
+            updateEntityArrays(delta);
+        } else {
+            updateCoins(delta);
+            updateBalls(delta);
+            checkCollisions();
+        }
         levelComplete();
         setMapPosition();
         background.update(tileMap.getPosition());
     }
 
+    /**
+     * Create the broad phases used to find collisions between coins, balls and player.
+     * Should be called in create() after the TileMap is created.
+     */
+    protected void createBroadPhases() {
+        createBroadPhases(Game.physicsManager.getBroadPhaseType());
+    }
+
+    /**
+     * Create the broad phases with a BroadPhaseType that suits the level.
+     * Should be called in create() after the TileMap is created.
+     *
+     * @param type PhysicsManager.BroadPhaseType
+     */
+    protected void createBroadPhases(PhysicsManager.BroadPhaseType type) {
+        coinBroadPhase = Game.physicsManager.createBroadPhase(type, tileMap.getTileSize());
+        ballBroadPhase = Game.physicsManager.createBroadPhase(type, tileMap.getTileSize());
+    }
+
+    /**
+     * Move the coins and balls created by the TileMap into a CoinArray and a BallArray, which are updated and drawn
+     * instead of the lists, if the level has at least ENTITY_ARRAY_THRESHOLD of them. Smaller levels keep the lists,
+     * which use the broad phases and the ActivityRegion. Should be called in create() after the TileMap is created.
+     * Streamed levels keep the lists, since the WorldStreamer adds and removes Coin and Ball objects.
+     *
+     * @return true if the arrays are used
+     */
+    protected boolean useEntityArrays() {
+        return useEntityArrays(ENTITY_ARRAY_THRESHOLD);
+    }
+
+    /**
+     * Move the coins and balls into a CoinArray and a BallArray if the level has at least threshold of them.
+     *
+     * @param threshold int, coins and balls needed to use the arrays
+     * @return true if the arrays are used
+     */
+    protected boolean useEntityArrays(int threshold) {
+        if (tileMap.getStreamer() != null || coins.size() + balls.size() < threshold) {
+            return false;
+        }
+        coinArray = new CoinArray(tileMap, coins.size());
+        for (Coin coin : coins) {
+            coinArray.add(coin.getX(), coin.getY());
+        }
+        ballArray = new BallArray(tileMap, balls.size());
+        for (Ball ball : balls) {
+            ballArray.add(ball.getX(), ball.getY(), ball.getVelocity().x, ball.getVelocity().y);
+        }
+        coins.clear();
+        balls.clear();
+        return true;
+    }
+
+    /**
+     * Update the CoinArray and BallArray and handle their collisions with player and each other.
+     *
+     * @param delta double
+     */
+    private void updateEntityArrays(double delta) {
+        coinArray.update(delta);
+        ballArray.update(delta);
+
+        int collected = coinArray.collect(player);
+        for (int i = 0; i < collected; i++) {
+            coinSound.play();
+            Game.score += 100;
+        }
+
+        int hits = ballArray.explodeColliding(player);
+        for (int i = 0; i < hits; i++) {
+            ballSound.play();
+            Game.lives--;
+            Game.score -= 100;
+        }
+        if (hits > 0) {
+            player.setHitByBall(true);  // This starts dizzy animation
+        }
+
+        ballArray.collideBalls();
+    }
+
     /**
      * Handle keyboard input.
      */
     private void handleInput() {
-        if (Game.inputManager.isKeyPressed(Game.getJumpKey().getName())) {
+        if (Game.inputManager.isKeyPressed(Game.getJumpKey())) {
             player.getMovement().setJumping(true);
             if (!player.getMovement().isFalling()) {
                 jumpSound.play();
@@ -60,17 +172,17 @@ public abstract class LevelState extends GameState {
         } else {
             player.getMovement().setJumping(false);
         }
-        if (Game.inputManager.isKeyPressed(Game.getLeftKey().getName())) {
+        if (Game.inputManager.isKeyPressed(Game.getLeftKey())) {
             player.getMovement().setMovingLeft(true);
         } else {
             player.getMovement().setMovingLeft(false);
         }
-        if (Game.inputManager.isKeyPressed(Game.getRightKey().getName())) {
+        if (Game.inputManager.isKeyPressed(Game.getRightKey())) {
             player.getMovement().setMovingRight(true);
         } else {
             player.getMovement().setMovingRight(false);
         }
-        if (Game.inputManager.isKeyPressed(Game.getQuitKey().getName())) {
+        if (Game.inputManager.isKeyPressed(Game.getQuitKey())) {
             Game.loader.setGameState("main");
             Game.lives = 9;
             Game.score = 0;
@@ -78,38 +190,61 @@ public abstract class LevelState extends GameState {
     }
 
     /**
-     * Update coins.
+     * Update coins that are active.
      *
      * @param delta double
      */
     private void updateCoins(double delta) {
-        for (int i = 0; i < coins.size(); i++) {
-            coins.get(i).update(delta);
-        }
+        activityRegion.update(coins, delta);
     }
 
     /**
-     * Update balls.
+     * Update balls that are active.
      *
      * @param delta double
      */
     private void updateBalls(double delta) {
-        for (int i = 0; i < balls.size(); i++) {
-            balls.get(i).update(delta);
-        }
+        activityRegion.update(balls, delta);
+    }
+
+    /**
+     * Update the broad phases with the positions of the coins and balls and handle the collisions between player,
+     * coins and balls. Doesn't allocate unless coins or balls are removed.
+     */
+    public void checkCollisions() {
+        coinBroadPhase.update(coins);
+        ballBroadPhase.update(balls);
+        playerCoinCollision();
+        playerBallCollision();
+        ballCollision();
     }
 
     /**
      * Handle collisions between player and coins.
      */
     private void playerCoinCollision() {
-        for (int i = 0; i < coins.size(); i++) {
-            if (PhysicsManager.circleRectangleCollision(player, coins.get(i))) {
-                coinSound.play();
-                coins.remove(i);
-                Game.score += 100;
-                i--;
-            }
+        collectedCoins.clear();
+        coinBroadPhase.forEachNear(player, coinHandler);
+        if (collectedCoins.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < collectedCoins.size(); i++) {
+            coinSound.play();
+            Game.score += 100;
+        }
+        coins.removeAll(collectedCoins);    // One pass over the coins for all collected coins
+        collectedCoins.clear();
+    }
+
+    /**
+     * Collect a coin near the player if it collides with the player.
+     *
+     * @param coin Coin
+     */
+    private void handleCoin(Coin coin) {
+        if (PhysicsManager.circleRectangleCollision(player, coin)) {
+            collectedCoins.add(coin);
         }
     }
 
@@ -117,16 +252,20 @@ public abstract class LevelState extends GameState {
      * Handle collisions between two balls. When colliding the balls get the velocity of the other ball.
      */
     private void ballCollision() {
-        for (int i = 0; i < balls.size() - 1; i++) {
-            Ball b1 = balls.get(i);
-            for (int j = i + 1; j < balls.size(); j++) {
-                Ball b2 = balls.get(j);
-                if (!b1.isExploding() && !b2.isExploding() && PhysicsManager.circleCircleCollision(b1, b2)) {
-                    Vector2 v = b1.getVelocity();
-                    b1.setVelocity(b2.getVelocity());
-                    b2.setVelocity(v);
-                }
-            }
+        ballBroadPhase.forEachPair(ballPairHandler);
+    }
+
+    /**
+     * Swap the velocities of two balls near each other if they collide.
+     *
+     * @param b1 Ball
+     * @param b2 Ball
+     */
+    private void handleBallPair(Ball b1, Ball b2) {
+        if (!b1.isExploding() && !b2.isExploding() && PhysicsManager.circleCircleCollision(b1, b2)) {
+            Vector2 v = b1.getVelocity();
+            b1.setVelocity(b2.getVelocity());
+            b2.setVelocity(v);
         }
     }
 
@@ -134,14 +273,21 @@ public abstract class LevelState extends GameState {
      * Handle collisions between player and ball. The player loses a life and the ball explodes.
      */
     private void playerBallCollision() {
-        for (Ball ball : balls) {
-            if ((!ball.isExploding()) && PhysicsManager.circleRectangleCollision(player, ball)) {
-                ballSound.play();
-                ball.setExploding(true);    // This starts exploding animation and removes ball
-                player.setHitByBall(true);  // This starts dizzy animation
-                Game.lives--;
-                Game.score -= 100;
-            }
+        ballBroadPhase.forEachNear(player, ballHandler);
+    }
+
+    /**
+     * Explode a ball near the player if it collides with the player.
+     *
+     * @param ball Ball
+     */
+    private void handleBall(Ball ball) {
+        if ((!ball.isExploding()) && PhysicsManager.circleRectangleCollision(player, ball)) {
+            ballSound.play();
+            ball.setExploding(true);    // This starts exploding animation and removes ball
+            player.setHitByBall(true);  // This starts dizzy animation
+            Game.lives--;
+            Game.score -= 100;
         }
     }
 
@@ -149,7 +295,7 @@ public abstract class LevelState extends GameState {
      * Check if level is completed by collecting all coins or losing all lives.
      */
     private void levelComplete() {
-        if (coins.size() == 0) {
+        if (getNumCoins() == 0 && tileMap.getNumUnloadedCoins() == 0) {
             if (Game.loader.getCurrentGameState() instanceof Level1) {
                 Game.loader.setGameState("level2");
             } else if (Game.loader.getCurrentGameState() instanceof Level2) {
@@ -166,6 +312,15 @@ public abstract class LevelState extends GameState {
         }
     }
 
+    /**
+     * Returns the number of coins left in the loaded part of the level.
+     *
+     * @return int
+     */
+    private int getNumCoins() {
+        return coinArray != null ? coinArray.getCount() : coins.size();
+    }
+
     /**
      * Change the position of the TileMap so it follows player.
      */
@@ -177,33 +332,45 @@ public abstract class LevelState extends GameState {
     }
 
     @Override
-    public void draw() {
+    public void draw(double alpha) {
         background.draw();
-        tileMap.draw();
-        drawCoins();
-        drawBalls();
-        player.draw();
+        tileMap.draw(alpha);
+        drawCoins(alpha);
+        drawBalls(alpha);
+        player.draw(alpha);
         drawStats();
     }
 
     /**
      * Draw coins that are on the screen.
+     *
+     * @param alpha double
      */
-    private void drawCoins() {
+    private void drawCoins(double alpha) {
+        if (coinArray != null) {
+            coinArray.draw(alpha);
+            return;
+        }
         for (Coin coin : coins) {
             if (coin.isOnScreen()) {
-                coin.draw();
+                coin.draw(alpha);
             }
         }
     }
 
     /**
      * Draw balls that are on the screen.
+     *
+     * @param alpha double
      */
-    private void drawBalls() {
+    private void drawBalls(double alpha) {
+        if (ballArray != null) {
+            ballArray.draw(alpha);
+            return;
+        }
         for (Ball ball : balls) {
             if (ball.isOnScreen()) {
-                ball.draw();
+                ball.draw(alpha);
             }
         }
     }
@@ -218,6 +385,18 @@ public abstract class LevelState extends GameState {
         Game.renderer.getGraphics2D().drawString("SCORE: " + Game.score, 50, 150);
     }
 
+    public ActivityRegion getActivityRegion() {
+        return activityRegion;
+    }
+
+    public CoinArray getCoinArray() {
+        return coinArray;
+    }
+
+    public BallArray getBallArray() {
+        return ballArray;
+    }
+
     /**
      * Remove a ball from the game when it collides with player.
      *
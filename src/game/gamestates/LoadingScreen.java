@@ -0,0 +1,43 @@
+package game.gamestates;
+
+import engine.GameState;
+import game.Game;
+
+import java.awt.*;
+
+/**
+ * Screen shown while images and sounds are preloaded. Changes to the main menu when everything is loaded.
+ */
+public class LoadingScreen extends GameState {
+    private static final int BAR_WIDTH = 600;
+    private static final int BAR_HEIGHT = 40;
+
+    @Override
+    public void create() {
+        // Nothing to load, this screen is shown while everything else is loading
+    }
+
+    @Override
+    public void update(double delta) {
+        if (Game.loader.isPreloaded()) {
+            Game.loader.setGameState("main");
+        }
+    }
+
+    @Override
+    public void draw(double alpha) {
+        int x = Game.renderer.getScreenWidth() / 2 - BAR_WIDTH / 2;
+        int y = Game.renderer.getScreenHeight() / 2 - BAR_HEIGHT / 2;
+
+        Game.renderer.getGraphics2D().setColor(Color.white);
+        Game.renderer.getGraphics2D().fillRect(0, 0, Game.renderer.getScreenWidth(), Game.renderer.getScreenHeight());
+
+        // Progress bar
+        Game.renderer.getGraphics2D().setColor(Color.black);
+        Game.renderer.getGraphics2D().setFont(new Font("Arial", Font.BOLD, 40));
+        Game.renderer.getGraphics2D().drawString("LOADING", x, y - 20);
+        Game.renderer.getGraphics2D().fillRect(x, y, (int) (BAR_WIDTH * Game.loader.getProgress()), BAR_HEIGHT);
+        Game.renderer.getGraphics2D().setStroke(new BasicStroke(3));
+        Game.renderer.getGraphics2D().drawRect(x, y, BAR_WIDTH, BAR_HEIGHT);
+    }
+}
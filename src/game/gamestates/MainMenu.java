@@ -54,7 +54,7 @@ public class MainMenu extends GameState {
     }
 
     @Override
-    public void draw() {
+    public void draw(double alpha) {
         background.draw();
 
         // Images
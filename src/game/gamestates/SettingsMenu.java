@@ -130,7 +130,7 @@ public class SettingsMenu extends GameState {
     }
 
     @Override
-    public void draw() {
+    public void draw(double alpha) {
         background.draw();
 
         Game.renderer.getGraphics2D().setColor(Color.black);
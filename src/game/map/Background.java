@@ -3,6 +3,7 @@ package game.map;
 import engine.Vector2;
 import game.Game;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.Serializable;
 
@@ -11,11 +12,13 @@ import java.io.Serializable;
  * Can move in the same direction as the level at a selected speed.
  */
 public class Background {
+    private final String filePath;
     private final BufferedImage image;
     private Vector2 position;
     private final double speedFactor;   // Speed that background moves compared to rest of level. 1 is same speed, 0.1 is 10 % speed etc.
 
     public Background(String filePath, double speedFactor) {
+        this.filePath = filePath;
         this.speedFactor = speedFactor;
         position = new Vector2();
         image = Game.loader.loadImage(filePath);
@@ -36,12 +39,13 @@ public class Background {
      * Draws the background. Called in the levels draw method.
      */
     public void draw() {
-        Game.renderer.getGraphics2D().drawImage(image, (int) position.x, (int) position.y, null);
+        Image accelerated = Game.loader.loadVolatileImage(filePath);   // Checked every frame in case it was lost
+        Game.renderer.getGraphics2D().drawImage(accelerated, (int) position.x, (int) position.y, null);
 
         if (position.x < 0) {   // Screen is moving left
-            Game.renderer.getGraphics2D().drawImage(image, (int) (position.x + image.getWidth()), (int) position.y, null);
+            Game.renderer.getGraphics2D().drawImage(accelerated, (int) (position.x + image.getWidth()), (int) position.y, null);
         } else if (position.x > 0) {    // Screen moving right
-            Game.renderer.getGraphics2D().drawImage(image, (int) (position.x - image.getWidth()), (int) position.y, null);
+            Game.renderer.getGraphics2D().drawImage(accelerated, (int) (position.x - image.getWidth()), (int) position.y, null);
         }
     }
 }
@@ -0,0 +1,155 @@
+package game.map;
+
+import game.Game;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of pre-drawn chunks of a TileMap. Each chunk is an image of CHUNK_SIZE x CHUNK_SIZE tiles, so the map can be
+ * drawn with a few large images instead of one image per tile. Chunks are drawn the first time they are on screen
+ * and the least recently used chunks are removed when there are more than MAX_CHUNKS.
+ */
+public class ChunkCache {
+    public static final int CHUNK_SIZE = 8;     // Number of tiles on each side of a chunk
+    private static final int MAX_CHUNKS = 16;   // Enough for the chunks on a 1080p screen and the ones around it
+
+    private final TileMap tileMap;
+    private final int numChunkCols;
+    private final int numChunkRows;
+    private final LinkedHashMap<Integer, BufferedImage> chunks;
+
+    public ChunkCache(TileMap tileMap, int numRows, int numCols) {
+        this.tileMap = tileMap;
+        numChunkCols = (numCols + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        numChunkRows = (numRows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        // Access ordered map, the eldest entry is the least recently drawn chunk
+        chunks = new LinkedHashMap<Integer, BufferedImage>(MAX_CHUNKS * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                if (size() > MAX_CHUNKS) {
+                    eldest.getValue().flush();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Draw the chunks covering the tiles from firstRow, firstCol to lastRow, lastCol.
+     *
+     * @param x double, horizontal position of the map
+     * @param y double, vertical position of the map
+     * @param firstRow int
+     * @param firstCol int
+     * @param lastRow int
+     * @param lastCol int
+     */
+    public void draw(double x, double y, int firstRow, int firstCol, int lastRow, int lastCol) {
+        int chunkPixels = CHUNK_SIZE * tileMap.getTileSize();
+
+        for (int chunkRow = firstRow / CHUNK_SIZE; chunkRow <= lastRow / CHUNK_SIZE; chunkRow++) {
+            if (chunkRow >= numChunkRows)
+                break;
+
+            for (int chunkCol = firstCol / CHUNK_SIZE; chunkCol <= lastCol / CHUNK_SIZE; chunkCol++) {
+                if (chunkCol >= numChunkCols)
+                    break;
+
+                Game.renderer.getGraphics2D().drawImage(
+                        getChunk(chunkRow, chunkCol),
+                        (int) x + chunkCol * chunkPixels,
+                        (int) y + chunkRow * chunkPixels,
+                        null
+                );
+            }
+        }
+    }
+
+    /**
+     * Remove the chunk containing a tile so it's drawn again next time. Called when a tile is changed.
+     *
+     * @param row int
+     * @param col int
+     */
+    public void invalidate(int row, int col) {
+        BufferedImage chunk = chunks.remove((row / CHUNK_SIZE) * numChunkCols + col / CHUNK_SIZE);
+        if (chunk != null) {
+            chunk.flush();
+        }
+    }
+
+    /**
+     * Remove the chunks containing a range of columns so they are drawn again next time. Called when the tiles in
+     * the columns are loaded by a WorldStreamer.
+     *
+     * @param firstCol int
+     * @param lastCol int
+     */
+    public void invalidateColumns(int firstCol, int lastCol) {
+        for (int chunkCol = firstCol / CHUNK_SIZE; chunkCol <= lastCol / CHUNK_SIZE; chunkCol++) {
+            for (int chunkRow = 0; chunkRow < numChunkRows; chunkRow++) {
+                BufferedImage chunk = chunks.remove(chunkRow * numChunkCols + chunkCol);
+                if (chunk != null) {
+                    chunk.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all chunks.
+     */
+    public void clear() {
+        for (BufferedImage chunk : chunks.values()) {
+            chunk.flush();
+        }
+        chunks.clear();
+    }
+
+    /**
+     * Returns the image of a chunk, drawing it if it isn't in the cache.
+     *
+     * @param chunkRow int
+     * @param chunkCol int
+     * @return BufferedImage
+     */
+    private BufferedImage getChunk(int chunkRow, int chunkCol) {
+        int key = chunkRow * numChunkCols + chunkCol;
+        BufferedImage chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = drawChunk(chunkRow, chunkCol);
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Draw all tiles in a chunk on a new image. Chunks at the right and bottom edge of the map can be smaller.
+     *
+     * @param chunkRow int
+     * @param chunkCol int
+     * @return BufferedImage
+     */
+    private BufferedImage drawChunk(int chunkRow, int chunkCol) {
+        int tileSize = tileMap.getTileSize();
+        int firstRow = chunkRow * CHUNK_SIZE;
+        int firstCol = chunkCol * CHUNK_SIZE;
+        int rows = Math.min(CHUNK_SIZE, tileMap.getNumRows() - firstRow);
+        int cols = Math.min(CHUNK_SIZE, tileMap.getNumCols() - firstCol);
+
+        BufferedImage chunk = Game.loader.createImage(cols * tileSize, rows * tileSize, Transparency.TRANSLUCENT);
+        Graphics2D g = chunk.createGraphics();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                g.drawImage(tileMap.getTileImage(firstRow + row, firstCol + col), col * tileSize, row * tileSize, null);
+            }
+        }
+        g.dispose();
+        return chunk;
+    }
+}
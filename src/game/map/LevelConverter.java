@@ -0,0 +1,38 @@
+package game.map;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Converts levels in the text format to the binary format read by LevelFile. Each .txt file in the directory is
+ * saved as a .lvl file next to it. Run again after editing a text level, LevelFile loads the slower text file while
+ * it's newer than the binary file.
+ *
+ * Usage: LevelConverter [directory], the default directory is resources/levels.
+ */
+public class LevelConverter {
+
+    public static void main(String[] args) {
+        File directory = new File(args.length > 0 ? args[0] : "resources/levels");
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(LevelFile.TEXT_EXTENSION));
+        if (files == null) {
+            System.err.println("No such directory: " + directory);
+            return;
+        }
+
+        for (File textFile : files) {
+            String name = textFile.getName();
+            File binaryFile = new File(directory,
+                    name.substring(0, name.length() - LevelFile.TEXT_EXTENSION.length()) + LevelFile.BINARY_EXTENSION);
+            try (BufferedReader reader = new BufferedReader(new FileReader(textFile))) {
+                LevelFile.parseText(reader).save(binaryFile);
+                System.out.println(textFile + " -> " + binaryFile);
+            } catch (IOException e) {
+                System.err.println("Could not convert " + textFile);
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package game.map;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Tiles and entities of a level. Levels are stored in a binary file ending with .lvl, or in the older text format
+ * ending with .txt where each row of tiles is a line of comma separated ints and Coins and Balls are marked with 'c'
+ * and 'b'. The text files can be converted to binary with LevelConverter.
+ *
+ * The binary format is big-endian:
+ * int magic "SPLV", short version, byte bytes per tile (1 or 2), int numCols, int numRows,
+ * numRows * numCols tiles row by row, int numEntities and numEntities * (byte type, int row, int col) sorted by
+ * column. The binary format is read by LevelStream.
+ */
+public class LevelFile {
+    public static final String BINARY_EXTENSION = ".lvl";
+    public static final String TEXT_EXTENSION = ".txt";
+
+    // Entity types, same characters as in the text format
+    public static final byte COIN = 'c';
+    public static final byte BALL = 'b';
+
+    private final int numCols;
+    private final int numRows;
+    private final int[][] tiles;
+    private final byte[] entityTypes;
+    private final int[] entityRows;
+    private final int[] entityCols;
+
+    private LevelFile(int numCols, int numRows, int[][] tiles, byte[] entityTypes, int[] entityRows,
+                      int[] entityCols) {
+        this.numCols = numCols;
+        this.numRows = numRows;
+        this.tiles = tiles;
+        this.entityTypes = entityTypes;
+        this.entityRows = entityRows;
+        this.entityCols = entityCols;
+    }
+
+    /**
+     * Load a level resource. If there is a binary file with the same name as a text file it is loaded instead,
+     * unless the text file has been changed after it. Otherwise the text file is used.
+     *
+     * @param path String, location of the level resource
+     * @return LevelFile or null if the level can't be loaded
+     */
+    public static LevelFile load(String path) {
+        if (path.endsWith(TEXT_EXTENSION) && hasCurrentBinary(path)) {
+            try {
+                return parseBinary(readResource(toBinaryPath(path)));
+            } catch (IOException e) {
+                e.printStackTrace();    // Broken binary file, use the text file instead
+            }
+        }
+
+        try {
+            if (path.endsWith(BINARY_EXTENSION)) {
+                return parseBinary(readResource(path));
+            }
+            InputStream inputStream = LevelFile.class.getResourceAsStream(path);
+            if (inputStream == null) {
+                throw new FileNotFoundException(path);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+                return parseText(reader);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a level has a binary version that is at least as new as its text version. A binary file older than
+     * the text file isn't used until it's converted again with LevelConverter. Resources in jar files have no time
+     * to compare, so there the binary file is used if it exists.
+     *
+     * @param path String ending with .txt or .lvl
+     * @return true if there is a binary version that should be used, false if only the text file can be used
+     */
+    public static boolean hasCurrentBinary(String path) {
+        URL binary = LevelFile.class.getResource(toBinaryPath(path));
+        if (binary == null) {
+            return false;
+        }
+        URL text = path.endsWith(TEXT_EXTENSION) ? LevelFile.class.getResource(path) : null;
+        if (text == null || !"file".equals(binary.getProtocol()) || !"file".equals(text.getProtocol())) {
+            return true;
+        }
+
+        try {
+            return new File(binary.toURI()).lastModified() >= new File(text.toURI()).lastModified();
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the path of the binary version of a level.
+     *
+     * @param path String ending with .txt or .lvl
+     * @return String ending with .lvl
+     */
+    public static String toBinaryPath(String path) {
+        if (path.endsWith(TEXT_EXTENSION)) {
+            return path.substring(0, path.length() - TEXT_EXTENSION.length()) + BINARY_EXTENSION;
+        }
+        return path;
+    }
+
+    /**
+     * Read a resource into a buffer. Resources that are files are memory mapped, resources in jar files are read
+     * with a single read.
+     *
+     * @param path String
+     * @return ByteBuffer
+     * @throws IOException if the resource can't be read
+     */
+    static ByteBuffer readResource(String path) throws IOException {
+        URL url = LevelFile.class.getResource(path);
+        if (url == null) {
+            throw new FileNotFoundException(path);
+        }
+
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return map(Paths.get(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+
+        try (InputStream inputStream = url.openStream()) {
+            return ByteBuffer.wrap(inputStream.readAllBytes());
+        }
+    }
+
+    /**
+     * Memory map a file.
+     *
+     * @param file Path
+     * @return ByteBuffer
+     * @throws IOException if the file can't be mapped
+     */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Parse a level in the binary format.
+     *
+     * @param buffer ByteBuffer with the level starting at position 0
+     * @return LevelFile
+     * @throws IOException if the buffer doesn't contain a valid level
+     */
+    public static LevelFile parseBinary(ByteBuffer buffer) throws IOException {
+        LevelStream stream = new LevelStream(buffer);
+        int numEntities = stream.getNumEntities();
+        byte[] types = new byte[numEntities];
+        int[] rows = new int[numEntities];
+        int[] cols = new int[numEntities];
+        for (int i = 0; i < numEntities; i++) {
+            types[i] = stream.getEntityType(i);
+            rows[i] = stream.getEntityRow(i);
+            cols[i] = stream.getEntityCol(i);
+        }
+
+        return new LevelFile(stream.getNumCols(), stream.getNumRows(), stream.readTiles(0, stream.getNumCols()),
+                types, rows, cols);
+    }
+
+    /**
+     * Parse a level in the text format.
+     *
+     * @param reader BufferedReader
+     * @return LevelFile
+     * @throws IOException if the text doesn't contain a valid level
+     */
+    public static LevelFile parseText(BufferedReader reader) throws IOException {
+        try {
+            int numCols = Integer.parseInt(reader.readLine().trim());
+            int numRows = Integer.parseInt(reader.readLine().trim());
+            int[][] tiles = new int[numRows][numCols];
+            ByteArrayOutputStream types = new ByteArrayOutputStream();
+            ArrayList<int[]> positions = new ArrayList<>();
+
+            for (int row = 0; row < numRows; row++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("Level ends at row " + row + " of " + numRows);
+                }
+                String[] lineData = line.split(","); // Delimiter between ints/tiles is ,
+
+                for (int col = 0; col < numCols; col++) {
+                    switch (lineData[col]) {
+                        case "c":   // Coins and Balls are placed on empty tiles
+                            types.write(COIN);
+                            positions.add(new int[]{row, col});
+                            break;
+                        case "b":
+                            types.write(BALL);
+                            positions.add(new int[]{row, col});
+                            break;
+                        default:
+                            tiles[row][col] = Integer.parseInt(lineData[col]);
+                            break;
+                    }
+                }
+            }
+
+            int[] rows = new int[positions.size()];
+            int[] cols = new int[positions.size()];
+            for (int i = 0; i < positions.size(); i++) {
+                rows[i] = positions.get(i)[0];
+                cols[i] = positions.get(i)[1];
+            }
+            return new LevelFile(numCols, numRows, tiles, types.toByteArray(), rows, cols);
+        } catch (NullPointerException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt level text", e);
+        }
+    }
+
+    /**
+     * Save the level in the binary format. Tiles use one byte each if all of them are below 256, otherwise two.
+     *
+     * @param file File
+     * @throws IOException if the file can't be written
+     */
+    public void save(File file) throws IOException {
+        int maxTile = 0;
+        for (int[] row : tiles) {
+            for (int tile : row) {
+                if (tile < 0 || tile > 0xFFFF) {
+                    throw new IOException("Tile " + tile + " can't be saved");
+                }
+                maxTile = Math.max(maxTile, tile);
+            }
+        }
+        int bytesPerTile = maxTile < 256 ? 1 : 2;
+
+        ByteBuffer buffer = ByteBuffer.allocate(LevelStream.HEADER_BYTES + numCols * numRows * bytesPerTile + 4 +
+                entityTypes.length * LevelStream.ENTITY_BYTES);
+        buffer.putInt(LevelStream.MAGIC);
+        buffer.putShort(LevelStream.VERSION);
+        buffer.put((byte) bytesPerTile);
+        buffer.putInt(numCols);
+        buffer.putInt(numRows);
+        for (int[] row : tiles) {
+            for (int tile : row) {
+                if (bytesPerTile == 1) {
+                    buffer.put((byte) tile);
+                } else {
+                    buffer.putShort((short) tile);
+                }
+            }
+        }
+        // Entities are sorted by column so a LevelStream can find the entities in a part of the level
+        Integer[] order = new Integer[entityTypes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> entityCols[i]).thenComparingInt(i -> entityRows[i]));
+        buffer.putInt(entityTypes.length);
+        for (int i : order) {
+            buffer.put(entityTypes[i]);
+            buffer.putInt(entityRows[i]);
+            buffer.putInt(entityCols[i]);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    // Getter methods
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the tiles of the level. The array is used by the TileMap directly, not copied.
+     *
+     * @return int[][] with the tiles row by row
+     */
+    public int[][] getTiles() {
+        return tiles;
+    }
+
+    public int getNumEntities() {
+        return entityTypes.length;
+    }
+
+    public byte getEntityType(int i) {
+        return entityTypes[i];
+    }
+
+    public int getEntityRow(int i) {
+        return entityRows[i];
+    }
+
+    public int getEntityCol(int i) {
+        return entityCols[i];
+    }
+}
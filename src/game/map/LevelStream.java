@@ -0,0 +1,160 @@
+package game.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Random access to the tiles and entities of a level in the binary format, see LevelFile. The file is memory mapped
+ * so parts of a level can be read without reading the whole file into memory. Only absolute reads are used, so
+ * several threads can read from the same LevelStream.
+ */
+public class LevelStream {
+    static final int MAGIC = 0x53504C56;  // "SPLV"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 1 + 4 + 4;
+    static final int ENTITY_BYTES = 1 + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final int numCols;
+    private final int numRows;
+    private final int bytesPerTile;
+    private final int tilesStart;       // Position of the first tile in the buffer
+    private final int numEntities;
+    private final int entitiesStart;    // Position of the first entity in the buffer
+
+    /**
+     * Read the header of a level and check that the rest of the level fits in the buffer.
+     *
+     * @param buffer ByteBuffer with the level starting at position 0
+     * @throws IOException if the buffer doesn't contain a valid level
+     */
+    public LevelStream(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a level file");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported level version " + version);
+        }
+        bytesPerTile = buffer.get(6);
+        numCols = buffer.getInt(7);
+        numRows = buffer.getInt(11);
+        tilesStart = HEADER_BYTES;
+
+        long tilesEnd = tilesStart + (long) numCols * numRows * bytesPerTile;
+        if ((bytesPerTile != 1 && bytesPerTile != 2) || numCols < 0 || numRows < 0 || buffer.limit() < tilesEnd + 4) {
+            throw new IOException("Corrupt level header");
+        }
+        numEntities = buffer.getInt((int) tilesEnd);
+        entitiesStart = (int) tilesEnd + 4;
+        if (numEntities < 0 || buffer.limit() < entitiesStart + (long) numEntities * ENTITY_BYTES) {
+            throw new IOException("Corrupt entity table");
+        }
+    }
+
+    /**
+     * Open the binary version of a level resource. A path ending with .txt opens the .lvl file with the same name.
+     *
+     * @param path String
+     * @return LevelStream
+     * @throws IOException if there is no binary level or it can't be read
+     */
+    public static LevelStream open(String path) throws IOException {
+        return new LevelStream(LevelFile.readResource(LevelFile.toBinaryPath(path)));
+    }
+
+    /**
+     * Read the tiles in a range of columns for all rows. Columns outside the level are read as 0.
+     *
+     * @param firstCol int
+     * @param cols int, number of columns to read
+     * @return int[][] with numRows rows of cols tiles
+     */
+    public int[][] readTiles(int firstCol, int cols) {
+        int[][] tiles = new int[numRows][cols];
+        int start = Math.max(firstCol, 0);
+        int end = Math.min(firstCol + cols, numCols);
+        if (start >= end) {
+            return tiles;
+        }
+
+        if (bytesPerTile == 1) {
+            byte[] row = new byte[end - start];
+            for (int r = 0; r < numRows; r++) {
+                buffer.get(tilesStart + r * numCols + start, row);
+                for (int c = 0; c < row.length; c++) {
+                    tiles[r][start - firstCol + c] = row[c] & 0xFF;
+                }
+            }
+        } else {
+            for (int r = 0; r < numRows; r++) {
+                int index = tilesStart + (r * numCols + start) * 2;
+                for (int c = start; c < end; c++, index += 2) {
+                    tiles[r][c - firstCol] = buffer.getShort(index) & 0xFFFF;
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Check that the entities are sorted by column, which is needed by firstEntityInColumn().
+     *
+     * @return true if the entities are sorted
+     */
+    public boolean isEntitiesSorted() {
+        for (int i = 1; i < numEntities; i++) {
+            if (getEntityCol(i) < getEntityCol(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Binary search for the first entity in a column or to the right of it. The entities must be sorted by column.
+     *
+     * @param col int
+     * @return int, index of the entity or numEntities if there are none
+     */
+    public int firstEntityInColumn(int col) {
+        int low = 0;
+        int high = numEntities;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getEntityCol(middle) < col) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Getter methods
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumEntities() {
+        return numEntities;
+    }
+
+    public byte getEntityType(int i) {
+        return buffer.get(entitiesStart + i * ENTITY_BYTES);
+    }
+
+    public int getEntityRow(int i) {
+        return buffer.getInt(entitiesStart + i * ENTITY_BYTES + 1);
+    }
+
+    public int getEntityCol(int i) {
+        return buffer.getInt(entitiesStart + i * ENTITY_BYTES + 5);
+    }
+}
@@ -5,20 +5,21 @@ import game.Game;
 import game.gameobjects.Ball;
 import game.gameobjects.Coin;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Serializable;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * A map built of Tiles. The map is read from a txt-file with ints representing different Tiles. The txt-file also
- * includes initial positions for Balls and Coins represented with a 'b' or 'c'.
+ * A map built of Tiles. The map is read from a level file with ints representing different Tiles, see LevelFile.
+ * The level file also includes initial positions for Balls and Coins. Binary levels wider than a few screens are
+ * streamed by a WorldStreamer, then the map only holds the strips of tiles around the camera.
  */
 public class TileMap {
 
     // Position
     private Vector2 position;
+    private final Vector2 previousPosition;   // Position before the last update, used when drawing
 
     // Fixates position inside the map
     private final Vector2 maxPosition;
@@ -26,10 +27,18 @@ public class TileMap {
 
     // Tiles
     private final int tileSize;
-    private int[][] map;    // 2d array read from txt-file
+    private int[][] map;    // 2d array read from the level file, or the loaded strips when streaming
     private int numCols;    // Number of tiles on the x-axis
     private int numRows;    // Number of tiles on the y-axis
     private ArrayList<Tile> tiles;
+    private long[] solid;       // One bit per tile, set if the tile is blocked. Each row starts at a new long
+    private int wordsPerRow;    // Number of longs used by each row in solid
+    private ChunkCache chunkCache;  // Tiles drawn in larger images
+
+    // Streaming, column col of the level is stored in column col & windowMask of map and solid
+    private WorldStreamer streamer;     // null if the whole level is loaded
+    private int windowMask;
+    private int[] slotStrips;           // Strip stored in each slot of the window, -1 if the slot is empty
 
     // Calculates which tiles needs to be drawn
     private int rowOffset;
@@ -38,56 +47,110 @@ public class TileMap {
     // Used to make "camera" follow player with a delay
     private final double tween;
 
-    public TileMap(String textFile, String tileSet, int tileSize, ArrayList<Coin> coins, ArrayList<Ball> balls) {
+    public TileMap(String levelFile, String tileSet, int tileSize, ArrayList<Coin> coins, ArrayList<Ball> balls) {
         this.tileSize = tileSize;
-        loadTextFile(textFile, coins, balls);
         loadTiles(tileSet);
+        if (!startStreaming(levelFile, coins, balls)) {
+            loadLevel(levelFile, coins, balls);
+            buildSolidity();
+        }
+        chunkCache = new ChunkCache(this, numRows, numCols);
         position = new Vector2();
+        previousPosition = new Vector2();
         tween = 0.06;
         maxPosition = new Vector2();
         minPosition = new Vector2(
                 Game.renderer.getScreenWidth() - numCols * tileSize,
                 Game.renderer.getScreenHeight() - numRows * tileSize
         );
+
+        if (streamer != null) {
+            streamer.loadNow(0, getNumScreenCols() - 1);
+        }
     }
 
     /**
-     * Load information from x txt-file. Tiles are loaded into a 2D array, Balls and Coins into ArrayLists.
+     * Start streaming the level if it's a binary level too wide to keep in a window of strips. A binary version older
+     * than the text level isn't used.
      *
      * @param path String
      * @param coins ArrayList<Coin>
      * @param balls ArrayList<Ball>
+     * @return true if the level is streamed
      */
-    private void loadTextFile(String path, ArrayList<Coin> coins, ArrayList<Ball> balls) {
+    private boolean startStreaming(String path, ArrayList<Coin> coins, ArrayList<Ball> balls) {
+        if (!LevelFile.hasCurrentBinary(path)) {
+            return false;
+        }
+
+        LevelStream stream;
         try {
-            InputStream inputStream = getClass().getResourceAsStream(path);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            numCols = Integer.parseInt(reader.readLine());
-            numRows = Integer.parseInt(reader.readLine());
-            map = new int[numRows][numCols];
-
-            for (int row = 0; row < numRows; row++) {
-                String line = reader.readLine();
-                String[] lineData = line.split(","); // Delimiter between ints/tiles is ,
-
-                for (int col = 0; col < numCols; col++) {
-                    switch (lineData[col]) {
-                        case "c":     // Add Coins marked with "c" in txt-file. +29 to place coins in center of tiles
-                            coins.add(new Coin(this, col * tileSize + 29, row * tileSize + 29));
-                            map[row][col] = 0;
-                            break;
-                        case "b":  // Add Balls marked with "b" in txt-file
-                            balls.add(new Ball(this, col * tileSize, row * tileSize));
-                            map[row][col] = 0;
-                            break;
-                        default:     // Add ints representing the Tiles
-                            map[row][col] = Integer.parseInt(lineData[col]);
-                            break;
-                    }
-                }
-            }
-        } catch (Exception e) {
+            stream = LevelStream.open(path);
+        } catch (IOException e) {
             e.printStackTrace();
+            return false;
+        }
+
+        int numSlots = WorldStreamer.getNumSlots(getNumScreenCols());
+        int windowCols = numSlots * WorldStreamer.STRIP_COLS;
+        if (stream.getNumCols() <= windowCols) {
+            return false;
+        }
+        if (!stream.isEntitiesSorted()) {
+            System.err.println("Entities in " + path + " aren't sorted, convert the level again to stream it");
+            return false;
+        }
+
+        numCols = stream.getNumCols();
+        numRows = stream.getNumRows();
+        map = new int[numRows][windowCols];
+        wordsPerRow = windowCols >>> 6;
+        solid = new long[numRows * wordsPerRow];
+        windowMask = windowCols - 1;
+        slotStrips = new int[numSlots];
+        Arrays.fill(slotStrips, -1);
+        streamer = new WorldStreamer(this, stream, coins, balls);
+        return true;
+    }
+
+    /**
+     * Returns the number of columns on the screen, + 2 is needed to draw correctly in borders while moving.
+     *
+     * @return int
+     */
+    private int getNumScreenCols() {
+        return Game.renderer.getScreenWidth() / tileSize + 2;
+    }
+
+    /**
+     * Load a level with LevelFile. Tiles are loaded into a 2D array, Balls and Coins into ArrayLists.
+     *
+     * @param path String
+     * @param coins ArrayList<Coin>
+     * @param balls ArrayList<Ball>
+     */
+    private void loadLevel(String path, ArrayList<Coin> coins, ArrayList<Ball> balls) {
+        LevelFile level = LevelFile.load(path);
+        if (level == null) {
+            map = new int[0][0];
+            return;
+        }
+
+        numCols = level.getNumCols();
+        numRows = level.getNumRows();
+        map = level.getTiles();
+
+        for (int i = 0; i < level.getNumEntities(); i++) {
+            int x = level.getEntityCol(i) * tileSize;
+            int y = level.getEntityRow(i) * tileSize;
+            switch (level.getEntityType(i)) {
+                case LevelFile.COIN:    // +29 to place coins in center of tiles
+                    coins.add(new Coin(this, x + 29, y + 29));
+                    break;
+                case LevelFile.BALL:
+                    balls.add(new Ball(this, x, y));
+                    break;
+            }
         }
     }
 
@@ -111,33 +174,52 @@ public class TileMap {
     }
 
     /**
-     * Draw the TileMap by looping through 2D array of ints read from the txt-file. Then draw the image of the Tile
-     * the int represents. Offset is used to only draw Tiles that are on the screen.
+     * Build the bitset of blocked tiles from the map, so collision checks don't need to look up the Tiles.
      */
-    public void draw() {
-
-        // Number of tiles on screen, + 2 is needed to draw correctly in borders while moving
-        int numRowsToDraw = Game.renderer.getScreenHeight() / tileSize + 2;
-        int numColsToDraw = Game.renderer.getScreenWidth() / tileSize + 2;
+    private void buildSolidity() {
+        wordsPerRow = (numCols + 63) >>> 6;
+        solid = new long[numRows * wordsPerRow];
+        for (int row = 0; row < numRows; row++) {
+            for (int col = 0; col < numCols; col++) {
+                setSolid(row, col, tiles.get(map[row][col]).isBlocked());
+            }
+        }
+    }
 
-        for (int row = rowOffset; row < rowOffset + numRowsToDraw; row++) {
-            if (row >= numRows)
-                break;
+    /**
+     * Set or clear the bit of a tile in the bitset of blocked tiles.
+     *
+     * @param row int
+     * @param col int
+     * @param blocked boolean
+     */
+    private void setSolid(int row, int col, boolean blocked) {
+        col = getWindowCol(col);
+        int index = row * wordsPerRow + (col >>> 6);
+        if (blocked) {
+            solid[index] |= 1L << col;
+        } else {
+            solid[index] &= ~(1L << col);
+        }
+    }
 
-            for (int col = colOffset; col < colOffset + numColsToDraw; col++) {
-                if (col >= numCols)
-                    break;
+    /**
+     * Draw the TileMap. The tiles are drawn in chunks of several tiles by ChunkCache. Offset is used to only draw
+     * chunks that are on the screen.
+     *
+     * @param alpha double between 0 and 1 used to draw the map between its last two positions
+     */
+    public void draw(double alpha) {
+        double x = getDrawX(alpha);
+        double y = getDrawY(alpha);
+        int colOffset = (int) -x / tileSize;
+        int rowOffset = (int) -y / tileSize;
 
-                int tile = map[row][col];   // int from the txt-file
+        // Number of tiles on screen, + 2 is needed to draw correctly in borders while moving
+        int numRowsToDraw = Game.renderer.getScreenHeight() / tileSize + 2;
+        int numColsToDraw = getNumScreenCols();
 
-                Game.renderer.getGraphics2D().drawImage(
-                        tiles.get(tile).getImage(),
-                        (int) position.x + col * tileSize,
-                        (int) position.y + row * tileSize,
-                        null
-                );
-            }
-        }
+        chunkCache.draw(x, y, rowOffset, colOffset, rowOffset + numRowsToDraw - 1, colOffset + numColsToDraw - 1);
     }
 
     /**
@@ -147,6 +229,7 @@ public class TileMap {
      * @param y double
      */
     public void setPosition(double x, double y) {
+        previousPosition.set(position);
         position.add((x - position.x) * tween, (y - position.y) * tween);   // This follows the player with a delay
 
         fixBounds();
@@ -154,6 +237,10 @@ public class TileMap {
         // Update offset used in the draw method
         colOffset = (int) -position.x / tileSize;
         rowOffset = (int) -position.y / tileSize;
+
+        if (streamer != null) {
+            streamer.update(colOffset, colOffset + getNumScreenCols() - 1);
+        }
     }
 
     /**
@@ -178,6 +265,26 @@ public class TileMap {
         return position.y;
     }
 
+    /**
+     * Returns the horizontal position to draw at, between the previous and current position.
+     *
+     * @param alpha double between 0 and 1
+     * @return double
+     */
+    public double getDrawX(double alpha) {
+        return previousPosition.x + (position.x - previousPosition.x) * alpha;
+    }
+
+    /**
+     * Returns the vertical position to draw at, between the previous and current position.
+     *
+     * @param alpha double between 0 and 1
+     * @return double
+     */
+    public double getDrawY(double alpha) {
+        return previousPosition.y + (position.y - previousPosition.y) * alpha;
+    }
+
     public int getColumnTile(int x) {
         return x / tileSize;
     }
@@ -186,15 +293,236 @@ public class TileMap {
         return y / tileSize;
     }
 
+    /**
+     * Change a tile in the map. The chunk containing the tile is drawn again the next time it's on screen.
+     *
+     * @param row int
+     * @param col int
+     * @param tile int with the index of the new Tile
+     */
+    public void setTile(int row, int col, int tile) {
+        if (row < 0 || col < 0 || row >= numRows || col >= numCols) {
+            return;
+        }
+        if (streamer != null) {
+            streamer.setTile(row, col, tile);
+            if (!isLoaded(col)) {
+                return;
+            }
+        }
+        map[row][getWindowCol(col)] = tile;
+        setSolid(row, col, tiles.get(tile).isBlocked());
+        chunkCache.invalidate(row, col);
+    }
+
+    /**
+     * Returns the index of a tile. Tiles outside the map or in strips that aren't loaded are 0.
+     *
+     * @param row int
+     * @param col int
+     * @return int
+     */
+    public int getTile(int row, int col) {
+        if (row < 0 || col < 0 || row >= numRows || col >= numCols || !isLoaded(col)) {
+            return 0;
+        }
+        return map[row][getWindowCol(col)];
+    }
+
+    public BufferedImage getTileImage(int row, int col) {
+        return tiles.get(getTile(row, col)).getImage();
+    }
+
+    /**
+     * Add a strip of tiles read by the WorldStreamer to the window.
+     *
+     * @param strip int
+     * @param stripTiles int[][] with numRows rows of WorldStreamer.STRIP_COLS tiles
+     */
+    void setStrip(int strip, int[][] stripTiles) {
+        int slot = strip & (slotStrips.length - 1);
+        int firstCol = strip * WorldStreamer.STRIP_COLS;
+        int lastCol = firstCol + WorldStreamer.STRIP_COLS - 1;
+        slotStrips[slot] = strip;
+        for (int row = 0; row < numRows; row++) {
+            System.arraycopy(stripTiles[row], 0, map[row], getWindowCol(firstCol), WorldStreamer.STRIP_COLS);
+            for (int col = firstCol; col <= lastCol; col++) {
+                setSolid(row, col, tiles.get(stripTiles[row][col - firstCol]).isBlocked());
+            }
+        }
+        chunkCache.invalidateColumns(firstCol, lastCol);
+    }
+
+    /**
+     * Remove a strip from the window. Its tiles count as blocked until it's loaded again.
+     *
+     * @param strip int
+     */
+    void clearStrip(int strip) {
+        int slot = strip & (slotStrips.length - 1);
+        if (slotStrips[slot] == strip) {
+            slotStrips[slot] = -1;
+        }
+    }
+
+    boolean isStripLoaded(int strip) {
+        return slotStrips[strip & (slotStrips.length - 1)] == strip;
+    }
+
+    int getSlotStrip(int slot) {
+        return slotStrips[slot];
+    }
+
+    int getNumSlots() {
+        return slotStrips.length;
+    }
+
+    /**
+     * Checks if the strip containing a column is loaded. Always true if the level isn't streamed.
+     *
+     * @param col int
+     * @return boolean
+     */
+    private boolean isLoaded(int col) {
+        return streamer == null || isStripLoaded(col >> WorldStreamer.STRIP_SHIFT);
+    }
+
+    /**
+     * Returns the column in map and solid where a column of the level is stored.
+     *
+     * @param col int
+     * @return int
+     */
+    private int getWindowCol(int col) {
+        return streamer == null ? col : col & windowMask;
+    }
+
+    /**
+     * Checks if a tile is blocked. Tiles outside the map count as blocked.
+     *
+     * @param row int
+     * @param col int
+     * @return true if the tile is blocked
+     */
     public boolean isBlocked(int row, int col) {
-        int tile = map[row][col];
-        return tiles.get(tile).isBlocked();
+        if (row < 0 || col < 0 || row >= numRows || col >= numCols || !isLoaded(col)) {
+            return true;
+        }
+        col = getWindowCol(col);
+        return (solid[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    /**
+     * Checks if any tile in a row between two columns is blocked. Tiles outside the map count as blocked.
+     *
+     * @param row int
+     * @param firstCol int
+     * @param lastCol int, included in the span
+     * @return true if any tile in the span is blocked
+     */
+    public boolean isRowSpanBlocked(int row, int firstCol, int lastCol) {
+        if (firstCol > lastCol) {
+            return false;
+        }
+        if (row < 0 || row >= numRows || firstCol < 0 || lastCol >= numCols) {
+            return true;
+        }
+        if (streamer == null) {
+            return isWindowSpanBlocked(row, firstCol, lastCol);
+        }
+
+        // Check one strip at a time since strips can be unloaded and the window wraps around between strips
+        for (int col = firstCol; col <= lastCol; col = (col | (WorldStreamer.STRIP_COLS - 1)) + 1) {
+            int stripLastCol = Math.min(lastCol, col | (WorldStreamer.STRIP_COLS - 1));
+            if (!isLoaded(col) || isWindowSpanBlocked(row, getWindowCol(col), getWindowCol(stripLastCol))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any tile in a row of the window between two columns is blocked.
+     *
+     * @param row int
+     * @param firstCol int, column in the window
+     * @param lastCol int, column in the window, included in the span
+     * @return true if any tile in the span is blocked
+     */
+    private boolean isWindowSpanBlocked(int row, int firstCol, int lastCol) {
+
+        // Check 64 tiles at a time, masking away the tiles before firstCol and after lastCol
+        int rowStart = row * wordsPerRow;
+        int firstWord = firstCol >>> 6;
+        int lastWord = lastCol >>> 6;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= -1L << firstCol;
+            }
+            if (word == lastWord) {
+                mask &= -1L >>> (63 - (lastCol & 63));
+            }
+            if ((solid[rowStart + word] & mask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if any tile in a column between two rows is blocked. Tiles outside the map count as blocked.
+     *
+     * @param col int
+     * @param firstRow int
+     * @param lastRow int, included in the span
+     * @return true if any tile in the span is blocked
+     */
+    public boolean isColumnSpanBlocked(int col, int firstRow, int lastRow) {
+        if (firstRow > lastRow) {
+            return false;
+        }
+        if (col < 0 || col >= numCols || firstRow < 0 || lastRow >= numRows || !isLoaded(col)) {
+            return true;
+        }
+
+        col = getWindowCol(col);
+        long bit = 1L << col;
+        int index = firstRow * wordsPerRow + (col >>> 6);
+        for (int row = firstRow; row <= lastRow; row++, index += wordsPerRow) {
+            if ((solid[index] & bit) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public int getTileSize() {
         return tileSize;
     }
 
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Returns the number of coins that aren't in the list of coins because they are in strips that aren't loaded.
+     * Always 0 if the level isn't streamed.
+     *
+     * @return int
+     */
+    public int getNumUnloadedCoins() {
+        return streamer == null ? 0 : streamer.getNumUnloadedCoins();
+    }
+
+    public WorldStreamer getStreamer() {
+        return streamer;
+    }
+
     public Vector2 getPosition() {
         return position;
     }
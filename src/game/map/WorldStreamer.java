@@ -0,0 +1,322 @@
+package game.map;
+
+import game.Game;
+import game.gameobjects.Ball;
+import game.gameobjects.Coin;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streams a level that is too wide to keep in memory into a TileMap. The level is split into strips of STRIP_COLS
+ * columns and all rows. Strips around the camera are read from a LevelStream on the Loader threads and added to the
+ * TileMap in update(), strips far from the camera are evicted. The TileMap only has room for a fixed number of
+ * strips, so the memory used by tiles doesn't depend on the width of the level.
+ *
+ * Coins and Balls are created the first time their strip is loaded. When a strip is evicted the Coins and Balls in
+ * it are saved and created again when the strip is loaded, so collected coins stay collected and balls keep their
+ * position and velocity. Changed tiles are also kept. Only this saved state grows with the parts of the level that
+ * have been visited.
+ */
+public class WorldStreamer {
+    public static final int STRIP_SHIFT = 4;
+    public static final int STRIP_COLS = 1 << STRIP_SHIFT;     // Number of columns in a strip
+    private static final int MARGIN = 1;   // Strips loaded outside the screen, and kept outside those before eviction
+
+    private final TileMap tileMap;
+    private final LevelStream stream;
+    private final ArrayList<Coin> coins;
+    private final ArrayList<Ball> balls;
+    private final int numStrips;
+
+    private final HashSet<Integer> pendingStrips;    // Strips being read by the Loader threads
+    private final ConcurrentLinkedQueue<Strip> loadedStrips;   // Strips read but not yet added to the TileMap
+    private final BitSet spawned;                   // Entities in the level that have been created
+    private final HashMap<Integer, ArrayList<SavedEntity>> savedEntities;  // Entities of evicted strips, by strip
+    private final HashMap<Long, Integer> changedTiles;  // Tiles changed with setTile, by row and column
+
+    private int numCoins;           // Coins in the level
+    private int numCoinsSpawned;
+    private int numCoinsSaved;
+
+    // Statistics
+    private int numLoads;
+    private int numEvictions;
+
+    public WorldStreamer(TileMap tileMap, LevelStream stream, ArrayList<Coin> coins, ArrayList<Ball> balls) {
+        this.tileMap = tileMap;
+        this.stream = stream;
+        this.coins = coins;
+        this.balls = balls;
+        numStrips = (stream.getNumCols() + STRIP_COLS - 1) / STRIP_COLS;
+        pendingStrips = new HashSet<>();
+        loadedStrips = new ConcurrentLinkedQueue<>();
+        spawned = new BitSet(stream.getNumEntities());
+        savedEntities = new HashMap<>();
+        changedTiles = new HashMap<>();
+
+        for (int i = 0; i < stream.getNumEntities(); i++) {
+            if (stream.getEntityType(i) == LevelFile.COIN) {
+                numCoins++;
+            }
+        }
+    }
+
+    /**
+     * Tiles and entities of a strip read from the LevelStream.
+     */
+    private static class Strip {
+        private final int index;
+        private final int[][] tiles;
+        private final int firstEntity;  // Entities in the strip are firstEntity to endEntity - 1
+        private final int endEntity;
+
+        private Strip(int index, int[][] tiles, int firstEntity, int endEntity) {
+            this.index = index;
+            this.tiles = tiles;
+            this.firstEntity = firstEntity;
+            this.endEntity = endEntity;
+        }
+    }
+
+    /**
+     * A Coin or Ball saved when its strip was evicted.
+     */
+    private static class SavedEntity {
+        private final byte type;
+        private final double x, y;
+        private final double velocityX, velocityY;
+
+        private SavedEntity(byte type, double x, double y, double velocityX, double velocityY) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.velocityX = velocityX;
+            this.velocityY = velocityY;
+        }
+    }
+
+    /**
+     * Returns the number of strips a TileMap needs room for when streaming. This is the strips on the screen, the
+     * loaded strips on each side and the strips kept on each side before they are evicted.
+     *
+     * @param numScreenCols int, number of columns on the screen
+     * @return int, a power of two so strips can be placed in the TileMap with a mask
+     */
+    public static int getNumSlots(int numScreenCols) {
+        int numStrips = (numScreenCols + STRIP_COLS - 1) / STRIP_COLS + 1 + 4 * MARGIN;
+        return Math.max(4, Integer.highestOneBit(numStrips - 1) << 1);
+    }
+
+    /**
+     * Load the strips around some columns right away. Used when the TileMap is created.
+     *
+     * @param firstCol int, first column on the screen
+     * @param lastCol int, last column on the screen
+     */
+    public void loadNow(int firstCol, int lastCol) {
+        for (int strip = firstStrip(firstCol, MARGIN); strip <= lastStrip(lastCol, MARGIN); strip++) {
+            if (!tileMap.isStripLoaded(strip)) {
+                addStrip(readStrip(strip));
+            }
+        }
+    }
+
+    /**
+     * Add strips that have been read, evict strips far from the screen and start reading strips that are close to
+     * the screen. Called when the TileMap is moved.
+     *
+     * @param firstCol int, first column on the screen
+     * @param lastCol int, last column on the screen
+     */
+    public void update(int firstCol, int lastCol) {
+        int firstKept = firstStrip(firstCol, 2 * MARGIN);
+        int lastKept = lastStrip(lastCol, 2 * MARGIN);
+
+        // Evict strips outside the kept strips
+        for (int slot = 0; slot < tileMap.getNumSlots(); slot++) {
+            int strip = tileMap.getSlotStrip(slot);
+            if (strip >= 0 && (strip < firstKept || strip > lastKept)) {
+                evict(strip);
+            }
+        }
+
+        // Add strips read since the last update, unless the camera has moved away from them
+        Strip strip;
+        while ((strip = loadedStrips.poll()) != null) {
+            pendingStrips.remove(strip.index);
+            if (strip.index >= firstKept && strip.index <= lastKept && !tileMap.isStripLoaded(strip.index)) {
+                addStrip(strip);
+            }
+        }
+
+        // Start reading missing strips on the Loader threads
+        for (int index = firstStrip(firstCol, MARGIN); index <= lastStrip(lastCol, MARGIN); index++) {
+            if (!tileMap.isStripLoaded(index) && pendingStrips.add(index)) {
+                int stripIndex = index;
+                Game.loader.getExecutor().execute(() -> {
+                    try {
+                        loadedStrips.add(readStrip(stripIndex));
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                });
+            }
+        }
+    }
+
+    private int firstStrip(int firstCol, int margin) {
+        return Math.max(0, (firstCol >> STRIP_SHIFT) - margin);
+    }
+
+    private int lastStrip(int lastCol, int margin) {
+        return Math.min(numStrips - 1, (lastCol >> STRIP_SHIFT) + margin);
+    }
+
+    /**
+     * Read the tiles of a strip and find its entities. Can be called from any thread.
+     *
+     * @param index int
+     * @return Strip
+     */
+    private Strip readStrip(int index) {
+        int firstCol = index * STRIP_COLS;
+        return new Strip(index, stream.readTiles(firstCol, STRIP_COLS),
+                stream.firstEntityInColumn(firstCol), stream.firstEntityInColumn(firstCol + STRIP_COLS));
+    }
+
+    /**
+     * Add a strip to the TileMap and create its Coins and Balls.
+     *
+     * @param strip Strip
+     */
+    private void addStrip(Strip strip) {
+        int firstCol = strip.index * STRIP_COLS;
+        for (Map.Entry<Long, Integer> change : changedTiles.entrySet()) {
+            int row = (int) (change.getKey() >> 32);
+            int col = (int) (long) change.getKey();
+            if (col >= firstCol && col < firstCol + STRIP_COLS) {
+                strip.tiles[row][col - firstCol] = change.getValue();
+            }
+        }
+        tileMap.setStrip(strip.index, strip.tiles);
+        numLoads++;
+
+        // Entities that haven't been created before
+        int tileSize = tileMap.getTileSize();
+        for (int i = strip.firstEntity; i < strip.endEntity; i++) {
+            if (spawned.get(i)) {
+                continue;
+            }
+            spawned.set(i);
+            int x = stream.getEntityCol(i) * tileSize;
+            int y = stream.getEntityRow(i) * tileSize;
+            switch (stream.getEntityType(i)) {
+                case LevelFile.COIN:    // +29 to place coins in center of tiles
+                    coins.add(new Coin(tileMap, x + 29, y + 29));
+                    numCoinsSpawned++;
+                    break;
+                case LevelFile.BALL:
+                    balls.add(new Ball(tileMap, x, y));
+                    break;
+            }
+        }
+
+        // Entities saved when the strip was evicted
+        ArrayList<SavedEntity> saved = savedEntities.remove(strip.index);
+        if (saved != null) {
+            for (SavedEntity entity : saved) {
+                if (entity.type == LevelFile.COIN) {
+                    coins.add(new Coin(tileMap, entity.x, entity.y));
+                    numCoinsSaved--;
+                } else {
+                    Ball ball = new Ball(tileMap, entity.x, entity.y);
+                    ball.setDirection(entity.velocityX, entity.velocityY);
+                    balls.add(ball);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a strip from the TileMap and save the Coins and Balls in it. Exploding balls are removed.
+     *
+     * @param strip int
+     */
+    private void evict(int strip) {
+        coins.removeIf(coin -> {
+            if (getStrip(coin.getCenterX()) != strip) {
+                return false;
+            }
+            save(strip, new SavedEntity(LevelFile.COIN, coin.getX(), coin.getY(), 0, 0));
+            numCoinsSaved++;
+            return true;
+        });
+        balls.removeIf(ball -> {
+            if (getStrip(ball.getCenterX()) != strip) {
+                return false;
+            }
+            if (!ball.isExploding()) {
+                save(strip, new SavedEntity(LevelFile.BALL, ball.getX(), ball.getY(),
+                        ball.getVelocity().x, ball.getVelocity().y));
+            }
+            return true;
+        });
+        tileMap.clearStrip(strip);
+        numEvictions++;
+    }
+
+    private void save(int strip, SavedEntity entity) {
+        savedEntities.computeIfAbsent(strip, k -> new ArrayList<>()).add(entity);
+    }
+
+    /**
+     * Returns the strip containing a horizontal position, limited to the strips in the level.
+     *
+     * @param x double
+     * @return int
+     */
+    private int getStrip(double x) {
+        int strip = (int) Math.floor(x / (STRIP_COLS * tileMap.getTileSize()));
+        return Math.max(0, Math.min(numStrips - 1, strip));
+    }
+
+    /**
+     * Remember a changed tile so it's kept when its strip is evicted and loaded again.
+     *
+     * @param row int
+     * @param col int
+     * @param tile int
+     */
+    public void setTile(int row, int col, int tile) {
+        changedTiles.put(((long) row << 32) | col, tile);
+    }
+
+    /**
+     * Returns the number of coins that haven't been collected and aren't in the list of coins, because their strip
+     * isn't loaded.
+     *
+     * @return int
+     */
+    public int getNumUnloadedCoins() {
+        return numCoins - numCoinsSpawned + numCoinsSaved;
+    }
+
+    // Getter methods
+
+    public int getNumStrips() {
+        return numStrips;
+    }
+
+    public int getNumLoads() {
+        return numLoads;
+    }
+
+    public int getNumEvictions() {
+        return numEvictions;
+    }
+}